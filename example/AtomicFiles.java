@@ -0,0 +1,83 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * Replaces files so that readers, and the file system after a crash, see either the old or
+ * the new contents but never a partly written file.
+ * The contents are written to a temporary file in the same directory, which is then renamed
+ * over the target. A target that is a symbolic link is followed, so the link is kept and the
+ * file it points to is replaced, and the new file gets the POSIX permissions of the old one.
+ */
+final class AtomicFiles {
+
+  /**
+   * Writes the contents of a file through a channel.
+   */
+  interface Contents {
+    void writeTo(FileChannel channel) throws IOException;
+  }
+
+  private AtomicFiles() {
+  }
+
+  /**
+   * Writes a file and renames it over the target, replacing the target if it exists.
+   *
+   * @param target The file to write.
+   * @param syncPolicy How hard the contents and the rename are pushed to the disk.
+   * @param contents Writes the contents to the temporary file.
+   * @throws IOException If the file can't be written. The target is left untouched.
+   */
+  static void replace(Path target, SyncPolicy syncPolicy, Contents contents) throws IOException {
+    boolean exists = Files.exists(target);
+    // Renaming over a link would replace the link itself with a regular file
+    target = exists ? target.toRealPath() : target.toAbsolutePath();
+    Path directory = target.getParent();
+    Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+    boolean moved = false;
+    try {
+      // Temporary files are only readable by their owner, which would carry over to the target
+      if (exists && Files.getFileAttributeView(target, PosixFileAttributeView.class) != null) {
+        Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+      }
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        contents.writeTo(channel);
+        syncPolicy.force(channel);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      moved = true;
+      if (syncPolicy == SyncPolicy.FULL) {
+        syncDirectory(directory);
+      }
+    } finally {
+      if (!moved) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  /**
+   * Forces the directory entries of a directory to the disk, where the platform allows it.
+   *
+   * @param directory The directory to sync.
+   */
+  static void syncDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // Directories can't be opened or synced on some platforms
+    }
+  }
+}
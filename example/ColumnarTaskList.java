@@ -0,0 +1,368 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of TaskListADT that keeps the tasks in parallel primitive arrays instead of
+ * one object per task, for lists of millions of tasks.
+ * Each task is stored as an int ID, an int epoch day, a byte priority ordinal, a bit in a
+ * completion BitSet and a range of UTF-8 bytes in a shared description arena. The list hands
+ * out lightweight Task views that read and write those arrays; a view is created on demand
+ * and holds nothing but the task ID.
+ */
+public class ColumnarTaskList implements TaskListADT {
+  private static final int NO_DATE = Integer.MIN_VALUE; // Epoch day stored for a null date
+  private static final byte NO_PRIORITY = -1; // Ordinal stored for a null priority
+  private static final int NO_DESCRIPTION = -1; // Length stored for a null description
+  private static final int MIN_CAPACITY = 16;
+  private static final Priority[] PRIORITIES = Priority.values();
+
+  private int[] ids;
+  private int[] epochDays;
+  private byte[] priorities;
+  private final BitSet completed;
+  private final BitSet removed; // Slots whose task has been removed
+  private int[] descriptionOffsets;
+  private int[] descriptionLengths;
+  private byte[] arena; // UTF-8 bytes of all descriptions, back to back
+  private int arenaSize; // Number of bytes used in the arena
+  private int arenaGarbage; // Bytes in the arena no longer referenced by any slot
+  private int slotCount; // Number of slots used, including removed ones
+  private final IntIntHashMap slotById; // Task ID -> slot
+
+  // Constructor to initialize an empty list
+  public ColumnarTaskList() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Initializes an empty list with room for the specified number of tasks.
+   *
+   * @param capacity The number of tasks to make room for.
+   */
+  public ColumnarTaskList(int capacity) {
+    capacity = Math.max(capacity, MIN_CAPACITY);
+    this.ids = new int[capacity];
+    this.epochDays = new int[capacity];
+    this.priorities = new byte[capacity];
+    this.completed = new BitSet(capacity);
+    this.removed = new BitSet(capacity);
+    this.descriptionOffsets = new int[capacity];
+    this.descriptionLengths = new int[capacity];
+    this.arena = new byte[capacity * 16];
+    this.slotById = new IntIntHashMap(capacity);
+  }
+
+  /**
+   * Adds a task to the end of the list by copying its values into the arrays.
+   * A task with the same ID as an existing task overwrites it in place.
+   *
+   * @param task The task to add.
+   */
+  public void addTask(Task task) {
+    int slot = slotById.get(task.getId());
+    if (slot == IntIntHashMap.MISSING) {
+      if (slotCount == ids.length) {
+        grow(slotCount * 2);
+      }
+      slot = slotCount++;
+      ids[slot] = task.getId();
+      slotById.put(task.getId(), slot);
+    } else {
+      releaseDescription(slot);
+    }
+    writeDescription(slot, task.getDescription());
+    writeDate(slot, task.getDate());
+    writePriority(slot, task.getPriority());
+    completed.set(slot, task.getCompleted());
+  }
+
+  /**
+   * Adds a task and returns the view the list keeps for it.
+   *
+   * @param task The task to add.
+   * @return A view of the stored task.
+   */
+  @Override
+  public Task addTaskAndGet(Task task) {
+    addTask(task);
+    return new RowTask(task.getId());
+  }
+
+  /**
+   * Adds tasks to the end of the list, growing the arrays and the ID index once for all of
+   * them instead of doubling as they fill up.
+   *
+   * @param tasks The tasks to add.
+   * @return Views of the stored tasks.
+   */
+  @Override
+  public List<Task> addAll(Collection<Task> tasks) {
+    int needed = slotCount + tasks.size();
+    if (needed > ids.length) {
+      grow(needed);
+    }
+    slotById.ensureCapacity(slotById.size() + tasks.size());
+    List<Task> added = new ArrayList<>(tasks.size());
+    for (Task task : tasks) {
+      added.add(addTaskAndGet(task));
+    }
+    return added;
+  }
+
+  /**
+   * Removes a task with the specified ID from the list.
+   *
+   * @param taskId The ID of the task to remove.
+   * @return True if the list held the task.
+   */
+  public boolean removeTask(int taskId) {
+    int slot = slotById.remove(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      return false; // Task not found
+    }
+    releaseDescription(slot);
+    removed.set(slot);
+    int removedCount = slotCount - slotById.size();
+    if (removedCount >= MIN_CAPACITY && removedCount > slotCount / 2) {
+      compact();
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves a view of the task with the specified ID.
+   *
+   * @param taskId The ID of the task to retrieve.
+   * @return A view of the task, or null if not found.
+   */
+  public Task getTaskById(int taskId) {
+    return slotById.get(taskId) == IntIntHashMap.MISSING ? null : new RowTask(taskId);
+  }
+
+  /**
+   * Retrieves views of all tasks in insertion order.
+   *
+   * @return A list containing all tasks.
+   */
+  public List<Task> getAllTasks() {
+    List<Task> allTasks = new ArrayList<>(slotById.size());
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (!removed.get(slot)) {
+        allTasks.add(new RowTask(ids[slot]));
+      }
+    }
+    return allTasks;
+  }
+
+  /**
+   * Marks a task with the specified ID as completed.
+   *
+   * @param taskId The ID of the task to mark as completed.
+   */
+  public void markTaskCompleted(int taskId) {
+    int slot = slotById.get(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    completed.set(slot);
+  }
+
+  /**
+   * Changes the due date of a task with the specified ID.
+   *
+   * @param taskId  The ID of the task to change the due date for.
+   * @param newDate The new due date for the task.
+   */
+  public void changeTaskDate(int taskId, LocalDate newDate) {
+    int slot = slotById.get(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    writeDate(slot, newDate);
+  }
+
+  /**
+   * Gets the number of tasks in the list.
+   *
+   * @return The number of tasks.
+   */
+  public int size() {
+    return slotById.size();
+  }
+
+  // Looks up the slot of a task that a view refers to
+  private int slotOf(int taskId) {
+    int slot = slotById.get(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      throw new IllegalStateException("Task with ID " + taskId + " is no longer in the list");
+    }
+    return slot;
+  }
+
+  private void writeDate(int slot, LocalDate date) {
+    epochDays[slot] = date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+  }
+
+  private LocalDate readDate(int slot) {
+    return epochDays[slot] == NO_DATE ? null : LocalDate.ofEpochDay(epochDays[slot]);
+  }
+
+  private void writePriority(int slot, Priority priority) {
+    priorities[slot] = priority == null ? NO_PRIORITY : (byte) priority.ordinal();
+  }
+
+  private Priority readPriority(int slot) {
+    return priorities[slot] == NO_PRIORITY ? null : PRIORITIES[priorities[slot]];
+  }
+
+  // Appends the description to the arena; the slot must not reference any arena bytes
+  private void writeDescription(int slot, String description) {
+    if (description == null) {
+      descriptionOffsets[slot] = 0;
+      descriptionLengths[slot] = NO_DESCRIPTION;
+      return;
+    }
+    byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+    if (arenaSize + bytes.length > arena.length) {
+      if (arenaGarbage > arenaSize / 2) {
+        compactArena();
+      }
+      if (arenaSize + bytes.length > arena.length) {
+        arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + bytes.length));
+      }
+    }
+    System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+    descriptionOffsets[slot] = arenaSize;
+    descriptionLengths[slot] = bytes.length;
+    arenaSize += bytes.length;
+  }
+
+  private String readDescription(int slot) {
+    int length = descriptionLengths[slot];
+    return length == NO_DESCRIPTION
+        ? null : new String(arena, descriptionOffsets[slot], length, StandardCharsets.UTF_8);
+  }
+
+  // Marks the arena bytes of the slot's description as garbage
+  private void releaseDescription(int slot) {
+    if (descriptionLengths[slot] != NO_DESCRIPTION) {
+      arenaGarbage += descriptionLengths[slot];
+      descriptionLengths[slot] = NO_DESCRIPTION;
+    }
+  }
+
+  private void grow(int capacity) {
+    ids = Arrays.copyOf(ids, capacity);
+    epochDays = Arrays.copyOf(epochDays, capacity);
+    priorities = Arrays.copyOf(priorities, capacity);
+    descriptionOffsets = Arrays.copyOf(descriptionOffsets, capacity);
+    descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+  }
+
+  // Moves the live tasks down over the removed slots, keeping their order
+  private void compact() {
+    int write = 0;
+    for (int read = 0; read < slotCount; read++) {
+      if (removed.get(read)) {
+        continue;
+      }
+      if (write != read) {
+        ids[write] = ids[read];
+        epochDays[write] = epochDays[read];
+        priorities[write] = priorities[read];
+        completed.set(write, completed.get(read));
+        descriptionOffsets[write] = descriptionOffsets[read];
+        descriptionLengths[write] = descriptionLengths[read];
+        slotById.put(ids[write], write);
+      }
+      write++;
+    }
+    completed.clear(write, slotCount);
+    removed.clear();
+    slotCount = write;
+    compactArena();
+  }
+
+  // Copies the referenced descriptions into a fresh arena, dropping the garbage bytes
+  private void compactArena() {
+    byte[] compacted = new byte[Math.max(arena.length, MIN_CAPACITY)];
+    int size = 0;
+    for (int slot = 0; slot < slotCount; slot++) {
+      int length = descriptionLengths[slot];
+      if (removed.get(slot) || length == NO_DESCRIPTION) {
+        continue;
+      }
+      System.arraycopy(arena, descriptionOffsets[slot], compacted, size, length);
+      descriptionOffsets[slot] = size;
+      size += length;
+    }
+    arena = compacted;
+    arenaSize = size;
+    arenaGarbage = 0;
+  }
+
+  /**
+   * A Task that reads and writes its values in the arrays of the list.
+   */
+  private class RowTask extends Task {
+
+    RowTask(int id) {
+      super(id, null, null, false, null);
+    }
+
+    @Override
+    public String getDescription() {
+      return readDescription(slotOf(getId()));
+    }
+
+    @Override
+    public void setDescription(String description) {
+      int slot = slotOf(getId());
+      releaseDescription(slot);
+      writeDescription(slot, description);
+      changed();
+    }
+
+    @Override
+    public LocalDate getDate() {
+      return readDate(slotOf(getId()));
+    }
+
+    @Override
+    public void setDate(LocalDate date) {
+      writeDate(slotOf(getId()), date);
+      changed();
+    }
+
+    @Override
+    public boolean getCompleted() {
+      return completed.get(slotOf(getId()));
+    }
+
+    @Override
+    public void setCompleted(boolean isCompleted) {
+      completed.set(slotOf(getId()), isCompleted);
+      changed();
+    }
+
+    @Override
+    public Priority getPriority() {
+      return readPriority(slotOf(getId()));
+    }
+
+    @Override
+    public void setPriority(Priority priority) {
+      writePriority(slotOf(getId()), priority);
+      changed();
+    }
+  }
+}
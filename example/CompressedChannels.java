@@ -0,0 +1,454 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Channels that compress and decompress data in a pipeline: the data is cut into blocks that
+ * are compressed or decompressed on an executor while the caller encodes or parses the
+ * blocks next to them.
+ *
+ * <p>The block format starts with the magic number {@code TKBZ} (int) and the format version
+ * (byte). Each block follows as its uncompressed length (int), its stored length (int), the
+ * CRC-32 of the uncompressed bytes (int) and the stored bytes, which are deflated unless the
+ * stored length equals the uncompressed length. An uncompressed length of 0 ends the data.
+ * Blocks don't depend on each other, so several are compressed or decompressed at once.
+ * A gzip stream is one stream, so its steps run one after another, but still on the executor.
+ */
+final class CompressedChannels {
+  static final int GZIP_MAGIC = 0x1F8B;
+  static final int BLOCK_MAGIC = 0x544B425A; // "TKBZ"
+  static final int BLOCK_FORMAT_VERSION = 1;
+  static final int BLOCK_SIZE = 256 << 10; // Uncompressed bytes per block
+
+  private static final int BLOCK_HEADER_SIZE = 12;
+  private static final int MAX_BLOCK_SIZE = 64 << 20; // Larger lengths are taken as corruption
+  private static final int PARALLEL_BLOCKS = 2 * Runtime.getRuntime().availableProcessors();
+  private static final int GZIP_BLOCKS = 4; // Enough to keep the single gzip step busy
+
+  private CompressedChannels() {
+  }
+
+  /**
+   * Collects the written bytes into blocks, starts compressing each block when it is full
+   * and writes the compressed blocks to the wrapped channel in order.
+   */
+  abstract static class PipelineWriter implements WritableByteChannel {
+    final Executor executor;
+    private final WritableByteChannel out;
+    private final int maxInFlight;
+    private final Deque<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int filled;
+    private boolean open = true;
+
+    PipelineWriter(WritableByteChannel out, Executor executor, int maxInFlight) {
+      this.out = out;
+      this.executor = executor;
+      this.maxInFlight = maxInFlight;
+    }
+
+    // Starts compressing a block; the block isn't touched by the caller afterwards
+    abstract CompletableFuture<ByteBuffer> compress(byte[] data, int length);
+
+    // Starts producing the bytes that end the compressed data
+    abstract CompletableFuture<ByteBuffer> finish();
+
+    // Queues bytes that are written after everything queued before them
+    void queue(CompletableFuture<ByteBuffer> bytes) {
+      inFlight.add(bytes);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (!open) {
+        throw new ClosedChannelException();
+      }
+      int written = src.remaining();
+      while (src.hasRemaining()) {
+        int length = Math.min(src.remaining(), block.length - filled);
+        src.get(block, filled, length);
+        filled += length;
+        if (filled == block.length) {
+          queue(compress(block, filled));
+          block = new byte[BLOCK_SIZE];
+          filled = 0;
+          while (inFlight.size() > maxInFlight) {
+            writeOut(inFlight.poll());
+          }
+        }
+      }
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    /**
+     * Compresses the last block, writes the end of the data and waits for it to be written.
+     * The wrapped channel stays open.
+     */
+    @Override
+    public void close() throws IOException {
+      if (!open) {
+        return;
+      }
+      open = false;
+      if (filled > 0) {
+        queue(compress(block, filled));
+      }
+      queue(finish());
+      while (!inFlight.isEmpty()) {
+        writeOut(inFlight.poll());
+      }
+    }
+
+    private void writeOut(CompletableFuture<ByteBuffer> future) throws IOException {
+      ByteBuffer bytes = join(future);
+      while (bytes.hasRemaining()) {
+        out.write(bytes);
+      }
+    }
+  }
+
+  /**
+   * Keeps the next blocks decompressing on the executor and hands out their bytes in order.
+   */
+  abstract static class PipelineReader implements ReadableByteChannel {
+    final ReadableByteChannel in;
+    final Executor executor;
+    private final int readAhead;
+    private final Deque<CompletableFuture<ByteBuffer>> ahead = new ArrayDeque<>();
+    private ByteBuffer current = ByteBuffer.allocate(0);
+    private boolean lastStarted; // Whether no more blocks are started
+    private boolean open = true;
+
+    PipelineReader(ReadableByteChannel in, Executor executor, int readAhead) {
+      this.in = in;
+      this.executor = executor;
+      this.readAhead = readAhead;
+    }
+
+    // Starts decompressing the next block, or returns null after the last one. The future
+    // holds null if the data turns out to have ended before the block.
+    abstract CompletableFuture<ByteBuffer> next() throws IOException;
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (!open) {
+        throw new ClosedChannelException();
+      }
+      while (!current.hasRemaining()) {
+        if (!advance()) {
+          return -1;
+        }
+      }
+      int length = Math.min(dst.remaining(), current.remaining());
+      ByteBuffer slice = current.duplicate();
+      slice.limit(slice.position() + length);
+      dst.put(slice);
+      current.position(current.position() + length);
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    /**
+     * Stops reading ahead. The wrapped channel stays open.
+     */
+    @Override
+    public void close() {
+      open = false;
+      ahead.clear();
+    }
+
+    private boolean advance() throws IOException {
+      while (!lastStarted && ahead.size() < readAhead) {
+        CompletableFuture<ByteBuffer> block = next();
+        if (block == null) {
+          lastStarted = true;
+        } else {
+          ahead.add(block);
+        }
+      }
+      if (ahead.isEmpty()) {
+        return false;
+      }
+      ByteBuffer bytes = join(ahead.poll());
+      if (bytes == null) {
+        lastStarted = true;
+        ahead.clear();
+        return false;
+      }
+      current = bytes;
+      return true;
+    }
+  }
+
+  /**
+   * Writes the block format, compressing several blocks at once.
+   */
+  static final class BlockWriter extends PipelineWriter {
+    BlockWriter(WritableByteChannel out, Executor executor) {
+      super(out, executor, PARALLEL_BLOCKS);
+      ByteBuffer header = ByteBuffer.allocate(5).putInt(BLOCK_MAGIC).put((byte) BLOCK_FORMAT_VERSION);
+      queue(CompletableFuture.completedFuture(header.flip()));
+    }
+
+    @Override
+    CompletableFuture<ByteBuffer> compress(byte[] data, int length) {
+      return CompletableFuture.supplyAsync(() -> deflate(data, length), executor);
+    }
+
+    @Override
+    CompletableFuture<ByteBuffer> finish() {
+      return CompletableFuture.completedFuture(ByteBuffer.allocate(4).putInt(0).flip());
+    }
+
+    // Deflates a block, storing it as is when that isn't smaller
+    private static ByteBuffer deflate(byte[] data, int length) {
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      byte[] block = new byte[BLOCK_HEADER_SIZE + length];
+      int size = 0;
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        while (!deflater.finished() && size < length) {
+          size += deflater.deflate(block, BLOCK_HEADER_SIZE + size, length - size);
+        }
+        if (!deflater.finished() || size >= length) {
+          System.arraycopy(data, 0, block, BLOCK_HEADER_SIZE, length);
+          size = length;
+        }
+      } finally {
+        deflater.end();
+      }
+      ByteBuffer bytes = ByteBuffer.wrap(block, 0, BLOCK_HEADER_SIZE + size);
+      bytes.putInt(0, length).putInt(4, size).putInt(8, (int) crc.getValue());
+      return bytes;
+    }
+  }
+
+  /**
+   * Reads the block format, decompressing several blocks at once.
+   */
+  static final class BlockReader extends PipelineReader {
+    private boolean started;
+
+    BlockReader(ReadableByteChannel in, Executor executor) {
+      super(in, executor, PARALLEL_BLOCKS);
+    }
+
+    @Override
+    CompletableFuture<ByteBuffer> next() throws IOException {
+      if (!started) {
+        ByteBuffer header = readFully(5);
+        if (header.getInt() != BLOCK_MAGIC) {
+          throw new IOException("Not a block-compressed file");
+        }
+        if (header.get() != BLOCK_FORMAT_VERSION) {
+          throw new IOException("Unsupported block-compressed file version");
+        }
+        started = true;
+      }
+      int length = readFully(4).getInt();
+      if (length == 0) {
+        return null;
+      }
+      ByteBuffer header = readFully(8);
+      int size = header.getInt();
+      int crc = header.getInt();
+      if (length < 0 || length > MAX_BLOCK_SIZE || size <= 0 || size > length) {
+        throw new IOException("Corrupt compressed block");
+      }
+      byte[] stored = readFully(size).array();
+      return CompletableFuture.supplyAsync(() -> inflate(stored, length, crc), executor);
+    }
+
+    private ByteBuffer readFully(int length) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(length);
+      while (bytes.hasRemaining()) {
+        if (in.read(bytes) < 0) {
+          throw new EOFException("Compressed task file is truncated");
+        }
+      }
+      return bytes.flip();
+    }
+
+    private static ByteBuffer inflate(byte[] stored, int length, int crc) {
+      byte[] data = stored;
+      if (stored.length != length) {
+        data = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+          inflater.setInput(stored);
+          int size = 0;
+          while (size < length && !inflater.finished() && !inflater.needsInput()) {
+            size += inflater.inflate(data, size, length - size);
+          }
+          if (size != length || !inflater.finished()) {
+            throw new UncheckedIOException(new IOException("Corrupt compressed block"));
+          }
+        } catch (DataFormatException e) {
+          throw new UncheckedIOException(new IOException("Corrupt compressed block", e));
+        } finally {
+          inflater.end();
+        }
+      }
+      CRC32 check = new CRC32();
+      check.update(data);
+      if ((int) check.getValue() != crc) {
+        throw new UncheckedIOException(new IOException("Compressed block fails its checksum"));
+      }
+      return ByteBuffer.wrap(data);
+    }
+  }
+
+  /**
+   * Writes a gzip stream, compressing on the executor one block after another.
+   */
+  static final class GzipWriter extends PipelineWriter {
+    private final ByteArrayOutputStream sink = new ByteArrayOutputStream(BLOCK_SIZE);
+    private GZIPOutputStream gzip; // Created by the first step, which writes the gzip header
+    private CompletableFuture<ByteBuffer> tail = CompletableFuture.completedFuture(null);
+
+    GzipWriter(WritableByteChannel out, Executor executor) {
+      super(out, executor, GZIP_BLOCKS);
+    }
+
+    @Override
+    CompletableFuture<ByteBuffer> compress(byte[] data, int length) {
+      return step(() -> gzip.write(data, 0, length));
+    }
+
+    @Override
+    CompletableFuture<ByteBuffer> finish() {
+      return step(() -> gzip.close()); // Ends the deflater, which finish() would leave to the GC
+    }
+
+    // Runs a step after the previous one and takes the compressed bytes it produced
+    private CompletableFuture<ByteBuffer> step(Step step) {
+      tail = tail.thenApplyAsync(previous -> {
+        try {
+          if (gzip == null) {
+            gzip = new FastGzipStream(sink);
+          }
+          step.run();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        byte[] bytes = sink.toByteArray();
+        sink.reset();
+        return ByteBuffer.wrap(bytes);
+      }, executor);
+      return tail;
+    }
+  }
+
+  /**
+   * Reads a gzip stream, including streams of several concatenated members, decompressing
+   * on the executor one block after another.
+   */
+  static final class GzipReader extends PipelineReader {
+    private GZIPInputStream gzip; // Created by the first step, which reads the gzip header
+    private CompletableFuture<ByteBuffer> tail = CompletableFuture.completedFuture(ByteBuffer.allocate(0));
+
+    GzipReader(ReadableByteChannel in, Executor executor) {
+      super(in, executor, GZIP_BLOCKS);
+    }
+
+    @Override
+    CompletableFuture<ByteBuffer> next() {
+      tail = tail.thenApplyAsync(previous -> previous == null ? null : readBlock(), executor);
+      return tail;
+    }
+
+    private ByteBuffer readBlock() {
+      try {
+        if (gzip == null) {
+          gzip = new GZIPInputStream(uncloseable(Channels.newInputStream(in)), BLOCK_SIZE);
+        }
+        byte[] block = new byte[BLOCK_SIZE];
+        int filled = 0;
+        int read;
+        while (filled < block.length && (read = gzip.read(block, filled, block.length - filled)) >= 0) {
+          filled += read;
+        }
+        if (filled == 0) {
+          gzip.close(); // Ends the inflater; the wrapped channel stays open
+          return null;
+        }
+        return ByteBuffer.wrap(block, 0, filled);
+      } catch (EOFException e) {
+        throw new UncheckedIOException(new EOFException("Compressed task file is truncated"));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static InputStream uncloseable(InputStream in) {
+      return new FilterInputStream(in) {
+        @Override
+        public void close() {
+        }
+      };
+    }
+  }
+
+  /**
+   * A gzip stream that favours speed over size, as the block format does.
+   */
+  private static final class FastGzipStream extends GZIPOutputStream {
+    FastGzipStream(OutputStream out) throws IOException {
+      super(out, BLOCK_SIZE);
+      def.setLevel(Deflater.BEST_SPEED);
+    }
+  }
+
+  private interface Step {
+    void run() throws IOException;
+  }
+
+  // Waits for a pipeline step, rethrowing its failure as thrown by the step
+  private static ByteBuffer join(CompletableFuture<ByteBuffer> future) throws IOException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * How a task file is compressed. Files are written compressed as their extension says and
+ * read as their first bytes say, so a compressed file loads whatever it is called.
+ */
+public enum Compression {
+  /** Plain, uncompressed data. */
+  NONE,
+  /** A standard gzip stream, for files read by other tools. Written with {@code .gz}. */
+  GZIP,
+  /**
+   * Independently compressed blocks, which are compressed and decompressed in parallel.
+   * Written with {@code .tkz}.
+   */
+  BLOCK;
+
+  /**
+   * Gets the compression a file is written with, from its extension.
+   * @param file The file to write.
+   * @return GZIP for {@code .gz}, BLOCK for {@code .tkz}, and NONE otherwise.
+   */
+  public static Compression forFile(Path file) {
+    String name = file.getFileName().toString().toLowerCase();
+    if (name.endsWith(".gz")) {
+      return GZIP;
+    }
+    if (name.endsWith(".tkz")) {
+      return BLOCK;
+    }
+    return NONE;
+  }
+
+  /**
+   * Gets the compression of the data in a file from its first bytes, without moving the
+   * position of the channel.
+   * @param channel The channel of the file.
+   * @return The compression of the file, NONE if its first bytes aren't a known header.
+   * @throws IOException If the file can't be read.
+   */
+  public static Compression detect(FileChannel channel) throws IOException {
+    ByteBuffer magic = ByteBuffer.allocate(4);
+    while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+      // Keep reading until the header bytes are in or the file ends
+    }
+    if (magic.position() >= 2 && (magic.getShort(0) & 0xFFFF) == CompressedChannels.GZIP_MAGIC) {
+      return GZIP;
+    }
+    if (magic.position() == 4 && magic.getInt(0) == CompressedChannels.BLOCK_MAGIC) {
+      return BLOCK;
+    }
+    return NONE;
+  }
+
+  /**
+   * Wraps a channel so that the data written to it is compressed on the executor while the
+   * caller produces more. Closing the returned channel writes the end of the compressed data
+   * but leaves the wrapped channel open.
+   * @param out The channel the compressed data is written to, by the caller's thread.
+   * @param executor The executor that compresses the data.
+   * @return The channel to write the uncompressed data to.
+   */
+  WritableByteChannel compress(WritableByteChannel out, Executor executor) {
+    switch (this) {
+      case GZIP:
+        return new CompressedChannels.GzipWriter(out, executor);
+      case BLOCK:
+        return new CompressedChannels.BlockWriter(out, executor);
+      default:
+        throw new IllegalStateException("Data is not compressed");
+    }
+  }
+
+  /**
+   * Wraps a channel so that the data read from it is decompressed on the executor ahead of
+   * the caller. Closing the returned channel leaves the wrapped channel open.
+   * @param in The channel holding the compressed data, positioned at its start.
+   * @param executor The executor that decompresses the data.
+   * @return The channel to read the uncompressed data from.
+   */
+  ReadableByteChannel decompress(ReadableByteChannel in, Executor executor) {
+    switch (this) {
+      case GZIP:
+        return new CompressedChannels.GzipReader(in, executor);
+      case BLOCK:
+        return new CompressedChannels.BlockReader(in, executor);
+      default:
+        throw new IllegalStateException("Data is not compressed");
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Drives a ConcurrentTaskModel from several threads at once and checks that readers never see
+ * a task half edited or indexes that disagree with the tasks, then measures how read
+ * throughput grows with the number of reader threads while one thread keeps writing.
+ * Every read is checked, in the measurements too, and the run fails on the first
+ * inconsistent one it finds.
+ * Run with the number of tasks and the seconds per measurement, for example
+ * {@code java org.example.ConcurrentModelStress 100000 2}.
+ */
+public class ConcurrentModelStress {
+  private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+  /**
+   * Runs the stress check and then the throughput measurements.
+   *
+   * @param args The number of tasks and the seconds per measurement (both optional).
+   * @throws InterruptedException If interrupted while waiting for the threads.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    long nanos = (long) ((args.length > 1 ? Double.parseDouble(args[1]) : 2) * 1e9);
+    int processors = Runtime.getRuntime().availableProcessors();
+
+    ConcurrentTaskModel model = new ConcurrentTaskModel(START);
+    int[] ids = fill(model, taskCount);
+    model.getTasksByPriority(Priority.RED); // Builds the indexes before the threads start
+
+    long errors = run(model, ids, Math.max(2, processors), nanos)[1];
+    System.out.printf("stress: %d reader threads, %d inconsistent reads%n", Math.max(2, processors), errors);
+    checkReads(model, errors);
+
+    System.out.printf("%-10s %16s %16s %12s%n", "readers", "reads/s", "writes/s", "speedup");
+    double single = 0;
+    for (int threads = 1; threads <= processors; threads = threads < processors && threads * 2 > processors
+        ? processors : threads * 2) {
+      long[] counts = run(model, ids, threads, nanos);
+      double reads = counts[0] * 1e9 / nanos;
+      if (threads == 1) {
+        single = reads;
+      }
+      System.out.printf("%-10d %,16.0f %,16.0f %11.2fx%n", threads, reads, counts[2] * 1e9 / nanos, reads / single);
+      checkReads(model, counts[1]);
+    }
+    System.out.println("OK");
+  }
+
+  // Adds tasks whose values all follow from one number, so a half edit shows
+  private static int[] fill(TaskModel model, int taskCount) {
+    int[] ids = new int[taskCount];
+    for (int i = 0; i < taskCount; i++) {
+      Task task = new Task("v" + i, dateFor(i), false, priorityFor(i));
+      model.addTask(task);
+      ids[i] = task.getId();
+    }
+    return ids;
+  }
+
+  /**
+   * Runs reader threads against one writer thread for a while.
+   *
+   * @return The number of reads, the number of inconsistent reads and the number of writes.
+   */
+  private static long[] run(ConcurrentTaskModel model, int[] ids, int readers, long nanos)
+      throws InterruptedException {
+    long end = System.nanoTime() + nanos;
+    long[][] counts = new long[readers + 1][2];
+    List<Thread> threads = new ArrayList<>();
+    for (int r = 0; r < readers; r++) {
+      long[] count = counts[r];
+      long seed = r;
+      threads.add(new Thread(() -> {
+        SplittableRandom random = new SplittableRandom(seed);
+        while (System.nanoTime() < end) {
+          for (int i = 0; i < 256; i++) {
+            Task task = model.getTaskById(ids[random.nextInt(ids.length)]);
+            if (task == null || !consistent(task)) {
+              count[1]++;
+            }
+            count[0]++;
+          }
+          // Snapshots are shared between readers, so check one that may be published meanwhile
+          List<Task> all = model.getAllTasks();
+          Task task = all.get(random.nextInt(all.size()));
+          if (!consistent(task)) {
+            count[1]++;
+          }
+        }
+      }, "reader-" + r));
+    }
+    long[] writes = counts[readers];
+    threads.add(new Thread(() -> {
+      SplittableRandom random = new SplittableRandom(-1);
+      while (System.nanoTime() < end) {
+        int value = random.nextInt(1_000_000);
+        model.editTask(ids[random.nextInt(ids.length)], "v" + value, dateFor(value), priorityFor(value));
+        writes[0]++;
+      }
+    }, "writer"));
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long reads = 0;
+    long errors = 0;
+    for (int r = 0; r < readers; r++) {
+      reads += counts[r][0];
+      errors += counts[r][1];
+    }
+    return new long[] {reads, errors, writes[0]};
+  }
+
+  // Whether the date and priority of a task are the ones its description was written with
+  private static boolean consistent(Task task) {
+    int value = Integer.parseInt(task.getDescription().substring(1));
+    return task.getDate().equals(dateFor(value)) && task.getPriority() == priorityFor(value);
+  }
+
+  // Fails the run if any read was inconsistent or the indexes disagree with the tasks
+  private static void checkReads(TaskModel model, long errors) {
+    if (errors > 0) {
+      System.out.println("FAILED: " + errors + " inconsistent reads");
+      System.exit(1);
+    }
+    checkIndexes(model);
+  }
+
+  // Checks the priority index against the tasks themselves once the threads are done
+  private static void checkIndexes(TaskModel model) {
+    int indexed = 0;
+    for (Priority priority : Priority.values()) {
+      for (Task task : model.getTasksByPriority(priority)) {
+        if (task.getPriority() != priority) {
+          throw new IllegalStateException("Task " + task.getId() + " is indexed under " + priority);
+        }
+        indexed++;
+      }
+    }
+    if (indexed != model.getAllTasks().size()) {
+      throw new IllegalStateException(indexed + " tasks indexed of " + model.getAllTasks().size());
+    }
+  }
+
+  private static LocalDate dateFor(int value) {
+    return START.plusDays(value % 365);
+  }
+
+  private static Priority priorityFor(int value) {
+    return Priority.values()[value % Priority.values().length];
+  }
+}
@@ -0,0 +1,267 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * A TaskModel that can be shared between threads, for example the Swing event thread,
+ * an importer and a reminder job.
+ * Changes are serialized through the write lock of a StampedLock. Version checks are
+ * optimistic reads that take no lock at all and only fall back to the read lock when a write
+ * raced with them. Snapshots are published once per version, so getAllTasks and snapshot
+ * don't block while the model is unchanged. Lookups and filter queries hold the shared read
+ * lock, which any number of readers can hold at the same time; they have no side effects
+ * on shared state, so readers never write over each other.
+ *
+ * <p>Locks only order the calls to the model, while a reader may keep using a task it got
+ * from a lookup or a snapshot long after. So the model never changes a task in place: each
+ * edit through its methods, editTask included, makes an edited copy under the write lock
+ * and puts the copy in the list and the indexes in place of the task. A task that was handed
+ * out keeps the values it had, and newer values come from the next lookup or snapshot.
+ * Changing a task through its own setters and calling updateTask bypasses this, and so does
+ * a task list that hands out views of its storage, such as a ColumnarTaskList.
+ */
+public class ConcurrentTaskModel extends TaskModel {
+  private final StampedLock lock;
+  private volatile TaskSnapshot published; // Latest snapshot handed out, read without locking
+
+  /**
+   * Initializes a ConcurrentTaskModel with the current date, backed by an IndexedTaskList.
+   *
+   * @param currentDate The current date.
+   */
+  public ConcurrentTaskModel(LocalDate currentDate) {
+    this(currentDate, new IndexedTaskList());
+  }
+
+  /**
+   * Initializes a ConcurrentTaskModel with the current date and the task list implementation
+   * to store the tasks in.
+   *
+   * @param currentDate The current date.
+   * @param taskList The task list to store the tasks in.
+   */
+  public ConcurrentTaskModel(LocalDate currentDate, TaskListADT taskList) {
+    super(currentDate, taskList);
+    this.lock = new StampedLock();
+  }
+
+  @Override
+  public void addTask(Task task) {
+    write(() -> super.addTask(task));
+  }
+
+  @Override
+  public void removeTask(int taskId) {
+    write(() -> super.removeTask(taskId));
+  }
+
+  @Override
+  public void changeDate(Task task, LocalDate newDate) {
+    write(() -> super.changeDate(task, newDate));
+  }
+
+  @Override
+  public void changeTaskDate(int taskId, LocalDate newDate) {
+    write(() -> super.changeTaskDate(taskId, newDate));
+  }
+
+  @Override
+  public void markTaskCompleted(int taskId) {
+    write(() -> super.markTaskCompleted(taskId));
+  }
+
+  @Override
+  public void setPriority(int taskId, Priority priority) {
+    write(() -> super.setPriority(taskId, priority));
+  }
+
+  @Override
+  public boolean editTask(int taskId, String description, LocalDate dueDate, Priority priority) {
+    long stamp = lock.writeLock();
+    try {
+      return super.editTask(taskId, description, dueDate, priority);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  boolean copiesOnEdit() {
+    return true;
+  }
+
+  @Override
+  public void updateTask(Task task) {
+    write(() -> super.updateTask(task));
+  }
+
+  @Override
+  void addBulk(Collection<Task> tasks, boolean renumberDuplicates, boolean buildIndex) {
+    write(() -> super.addBulk(tasks, renumberDuplicates, buildIndex));
+  }
+
+  @Override
+  public Task getTaskById(int taskId) {
+    return read(() -> super.getTaskById(taskId));
+  }
+
+  @Override
+  public long getVersion() {
+    return optimisticRead(super::getVersion);
+  }
+
+  @Override
+  public boolean isCurrent(TaskSnapshot snapshot) {
+    return optimisticRead(() -> super.isCurrent(snapshot));
+  }
+
+  /**
+   * Gets a snapshot of the tasks at the current version of the model. While the model is
+   * unchanged the published snapshot is returned without taking a lock. Building a new one
+   * caches it in the model, so that is done under the write lock, once per version.
+   *
+   * @return The snapshot of the current tasks.
+   */
+  @Override
+  public TaskSnapshot snapshot() {
+    long stamp = lock.tryOptimisticRead();
+    TaskSnapshot current = published;
+    if (stamp != 0 && current != null && current.getVersion() == super.getVersion()
+        && lock.validate(stamp)) {
+      return current;
+    }
+    stamp = lock.writeLock();
+    try {
+      current = super.snapshot();
+      published = current;
+      return current;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  TaskSnapshot snapshotWith(Runnable action) {
+    long stamp = lock.writeLock();
+    try {
+      return super.snapshotWith(action);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  Task detachedCopy(Task task) {
+    return read(() -> super.detachedCopy(task));
+  }
+
+  @Override
+  public List<Task> getTasksByPriority(Priority priority) {
+    return indexedRead(() -> super.getTasksByPriority(priority));
+  }
+
+  @Override
+  public List<Task> getTasksByCompletion(boolean completed) {
+    return indexedRead(() -> super.getTasksByCompletion(completed));
+  }
+
+  @Override
+  public List<Task> getTasksByDate(LocalDate date) {
+    return indexedRead(() -> super.getTasksByDate(date));
+  }
+
+  @Override
+  public List<Task> getTasksBetween(LocalDate from, LocalDate to) {
+    return indexedRead(() -> super.getTasksBetween(from, to));
+  }
+
+  @Override
+  public List<Task> getOverdueTasks(IDate currentDate) {
+    return indexedRead(() -> super.getOverdueTasks(currentDate));
+  }
+
+  @Override
+  public List<Task> query(TaskQuery query) {
+    return indexedRead(() -> super.query(query));
+  }
+
+  @Override
+  public TaskPage queryPage(TaskQuery query) {
+    return indexedRead(() -> super.queryPage(query));
+  }
+
+  @Override
+  public long queryVersion(TaskQuery query) {
+    return indexedRead(() -> super.queryVersion(query));
+  }
+
+  @Override
+  public String explain(TaskQuery query) {
+    return indexedRead(() -> super.explain(query));
+  }
+
+  @Override
+  public List<String> suggestWords(String prefix, int max) {
+    return indexedRead(() -> super.suggestWords(prefix, max));
+  }
+
+  // Runs a change to the model while holding the write lock
+  private void write(Runnable change) {
+    long stamp = lock.writeLock();
+    try {
+      change.run();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Runs a query while holding the shared read lock
+  private <T> T read(Supplier<T> query) {
+    long stamp = lock.readLock();
+    try {
+      return query.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Runs a query that needs the secondary indexes while holding the shared read lock. The
+  // indexes are built lazily, which changes the model, so that is done under the write lock.
+  private <T> T indexedRead(Supplier<T> query) {
+    while (true) {
+      if (!isIndexBuilt()) {
+        write(this::buildIndex);
+      }
+      long stamp = lock.readLock();
+      try {
+        if (isIndexBuilt()) {
+          return query.get();
+        }
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+  }
+
+  // Runs a read of plain fields of the model without locking, retrying under the read lock
+  // if a write happened meanwhile. Only for reads that can't go wrong on torn values and
+  // have no side effects, since nothing they do before validation can be taken back.
+  private <T> T optimisticRead(Supplier<T> query) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        T result = query.get();
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (RuntimeException e) {
+        // Fall through to the locked read below
+      }
+    }
+    return read(query);
+  }
+}
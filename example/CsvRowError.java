@@ -0,0 +1,62 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Describes a row of a task file that could not be turned into a task.
+ */
+public class CsvRowError {
+  private final long row;
+  private final String message;
+
+  /**
+   * Constructs an error for the specified row.
+   * @param row The number of the row, starting at 1.
+   * @param message What is wrong with the row.
+   */
+  public CsvRowError(long row, String message) {
+    this.row = row;
+    this.message = message;
+  }
+
+  /**
+   * Gets the number of the malformed row, starting at 1.
+   * @return The row number.
+   */
+  public long getRow() {
+    return row;
+  }
+
+  /**
+   * Gets the description of what is wrong with the row.
+   * @return The error message.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Builds a short report of the malformed rows of a file, listing the first few of them.
+   * @param errors The malformed rows.
+   * @return The report, or an empty string if there are no malformed rows.
+   */
+  static String summarize(List<CsvRowError> errors) {
+    if (errors.isEmpty()) {
+      return "";
+    }
+    StringBuilder summary = new StringBuilder();
+    summary.append(errors.size()).append(" malformed row(s) skipped:");
+    for (int i = 0; i < Math.min(errors.size(), 5); i++) {
+      summary.append("\n").append(errors.get(i));
+    }
+    if (errors.size() > 5) {
+      summary.append("\n...");
+    }
+    return summary.toString();
+  }
+
+  @Override
+  public String toString() {
+    return "Row " + row + ": " + message;
+  }
+}
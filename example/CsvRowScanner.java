@@ -0,0 +1,98 @@
+package org.example;
+
+/**
+ * Finds where the rows of CSV task data end, with the same quoting rule as the parser of
+ * TaskCsvReader: a double quote only opens a quoted field when it is the first byte of a
+ * field, and anywhere else it is an ordinary character. Files written before descriptions
+ * were quoted hold rows such as {@code 4,2" pipe,...}, so counting every quote would put the
+ * scanner out of step with the parser for the rest of the file.
+ *
+ * <p>A row that grows past the longest row allowed is most likely a quote that is never
+ * closed. The scanner then ends it at the next line break, as if the quote were an ordinary
+ * character, and marks it as too long so that it is reported instead of parsed. Every reader
+ * of task files splits rows with this class, so they all agree on where rows are.
+ *
+ * <p>Bytes are fed one at a time starting at a row boundary, so the scanner can follow data
+ * that arrives in chunks or is read through a small buffer.
+ */
+final class CsvRowScanner {
+  private final long maxRowSize;
+  private long rowSize; // Bytes of the current row so far
+  private boolean fieldStart = true; // The next byte is the first of a field
+  private boolean quoted; // Inside a quoted field
+  private boolean quote; // The last byte was a quote inside a quoted field: closing, or the first of a pair
+  private boolean tooLong; // The current row, or the row just ended, passed the longest row allowed
+
+  /**
+   * Constructs a scanner positioned at the start of the data.
+   *
+   * @param maxRowSize The number of bytes, line break excluded, above which a row is too long.
+   */
+  CsvRowScanner(long maxRowSize) {
+    this.maxRowSize = maxRowSize;
+  }
+
+  /**
+   * Feeds the next byte of the data.
+   *
+   * @param b The byte.
+   * @return True if the byte is the line break that ends a row.
+   */
+  boolean endsRow(byte b) {
+    if (rowSize == 0) {
+      tooLong = false; // A new row starts
+    }
+    if (tooLong) {
+      return endRowAt(b);
+    }
+    if (quoted) {
+      if (!quote) {
+        quote = b == '"'; // Line breaks and commas inside quotes belong to the field
+        return grow();
+      }
+      quote = false;
+      if (b == '"') {
+        return grow(); // A doubled quote stands for one quote
+      }
+      quoted = false; // The quote before closed the field; the parser skips to the next comma
+    }
+    if (b == '\n' || b == ',') {
+      fieldStart = true;
+      return b == '\n' ? endRowAt(b) : grow();
+    }
+    quoted = b == '"' && fieldStart;
+    fieldStart = false;
+    return grow();
+  }
+
+  /**
+   * Checks whether the current row, or the row whose line break was fed last, is longer than
+   * allowed. Its bytes are no longer quoted, so it ends at its next line break.
+   *
+   * @return True if the row is too long to be parsed.
+   */
+  boolean isTooLong() {
+    return tooLong;
+  }
+
+  // Counts a byte of the row that doesn't end it
+  private boolean grow() {
+    if (++rowSize > maxRowSize && !tooLong) {
+      tooLong = true;
+      quoted = false;
+      quote = false;
+    }
+    return false;
+  }
+
+  // Ends the row at a line break, or counts any other byte of a row that is too long
+  private boolean endRowAt(byte b) {
+    if (b != '\n') {
+      rowSize++;
+      return false;
+    }
+    rowSize = 0;
+    fieldStart = true;
+    return true;
+  }
+}
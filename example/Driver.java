@@ -1,19 +1,50 @@
 package org.example;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 
 /**
  * The main class for the application. It initializes the necessary components and starts the GUI.
  */
 public class Driver {
+  private static final Path DATA = Paths.get("task-data"); // Checkpoints and changes of earlier runs
+  private static final Duration CHECKPOINT_INTERVAL = Duration.ofMinutes(5);
 
   /**
    * The entry point of the application.
-   * @param args The command-line arguments (not used in this application).
+   * @param args Optionally a CSV task file to open in place, for files too large to load.
    */
   public static void main(String[] args) {
-    // Create a TaskModel instance with the current date
-    TaskModel taskModel = new TaskModel(LocalDate.now());
+    TaskModel taskModel;
+    if (args.length > 0) {
+      // Parse the tasks of the file as they are needed; its ID index is built once and kept
+      // next to the file. Changes stay in memory until the tasks are saved, so the tasks of
+      // earlier runs are not restored into it.
+      try {
+        LazyTaskList tasks = LazyTaskList.open(Paths.get(args[0]));
+        taskModel = new ConcurrentTaskModel(LocalDate.now(), tasks);
+        closeOnExit(tasks, "task file");
+      } catch (IOException e) {
+        System.out.println("Error opening " + args[0] + ": " + e.getMessage());
+        return;
+      }
+    } else {
+      // Create a thread-safe TaskModel instance with the current date, indexed by task ID
+      taskModel = new ConcurrentTaskModel(LocalDate.now(), new IndexedTaskList());
+
+      // Restore the tasks of earlier runs, then record every change and checkpoint periodically
+      try {
+        TaskCheckpointer checkpointer = TaskCheckpointer.open(DATA, taskModel);
+        checkpointer.start(CHECKPOINT_INTERVAL);
+        closeOnExit(checkpointer, "task journal");
+      } catch (IOException e) {
+        System.out.println("Error opening the task journal, changes won't be recorded: " + e.getMessage());
+      }
+    }
 
     // Create instances of controllers and GUI with appropriate arguments
     TaskController taskController = new TaskController(taskModel, new TaskView());
@@ -27,4 +58,14 @@ public class Driver {
     // Start the GUI
     taskListGUI.start();
   }
+
+  private static void closeOnExit(Closeable closeable, String name) {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        System.out.println("Error closing the " + name + ": " + e.getMessage());
+      }
+    }));
+  }
 }
@@ -3,7 +3,7 @@ package org.example;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 public class EventController implements ITaskController {
   private final ITaskList model;
@@ -42,13 +42,7 @@ public class EventController implements ITaskController {
 
   @Override
   public void editTask(int taskId, String description, LocalDate dueDate, Priority priority) {
-    Task taskToUpdate = model.getTaskById(taskId);
-    if (taskToUpdate != null) {
-      taskToUpdate.setDescription(description);
-      taskToUpdate.setDate(dueDate);
-      taskToUpdate.setPriority(priority);
-      model.updateTask(taskToUpdate);
-    } else {
+    if (!model.editTask(taskId, description, dueDate, priority)) {
       // Task with the given ID not found
       System.out.println("Task not found with ID: " + taskId);
     }
@@ -67,32 +61,54 @@ public class EventController implements ITaskController {
   @Override
   public void loadTaskListFromCSV(String filename) {
     try {
-      model.loadTasksFromCSV(filename);
+      List<CsvRowError> errors = model.loadTasksFromCSV(filename);
       System.out.println("Task list loaded from CSV file: " + filename);
+      if (!errors.isEmpty()) {
+        System.out.println(CsvRowError.summarize(errors));
+      }
     } catch (IOException e) {
       System.out.println("Error loading tasks from CSV: " + e.getMessage());
     }
   }
 
+  @Override
+  public CompletableFuture<Void> saveTaskListToCSVAsync(String filename, TaskProgressListener progress) {
+    return model.saveTasksToCSVAsync(filename, progress);
+  }
+
+  @Override
+  public CompletableFuture<List<CsvRowError>> loadTaskListFromCSVAsync(String filename, TaskProgressListener progress) {
+    return model.loadTasksFromCSVAsync(filename, progress);
+  }
+
   @Override
   public List<Task> getTasksByCompletion(boolean completed) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.isCompleted() == completed)
-        .collect(Collectors.toList());
+    return model.getTasksByCompletion(completed);
   }
 
   @Override
   public List<Task> getTasksByPriority(Priority priority) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.getPriority() == priority)
-        .collect(Collectors.toList());
+    return model.getTasksByPriority(priority);
   }
 
   @Override
   public List<Task> getTasksByDate(LocalDate filterDate) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.getDueDate().isEqual(filterDate) || task.getDueDate().isAfter(filterDate))
-        .collect(Collectors.toList());
+    return model.getTasksByDate(filterDate);
+  }
+
+  @Override
+  public List<Task> getOverdueTasks(IDate currentDate) {
+    return model.getOverdueTasks(currentDate);
+  }
+
+  @Override
+  public List<Task> query(TaskQuery query) {
+    return model.query(query);
+  }
+
+  @Override
+  public TaskPage queryPage(TaskQuery query) {
+    return model.queryPage(query);
   }
 
   @Override
@@ -2,6 +2,7 @@ package org.example;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface representing a controller for tasks.
@@ -62,6 +63,22 @@ public interface ITaskController {
    */
   void loadTaskListFromCSV(String filename);
 
+  /**
+   * Saves the task list to a CSV file without blocking the caller.
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to, on a background thread.
+   * @return A future that completes when the file is saved; cancelling it stops the save.
+   */
+  CompletableFuture<Void> saveTaskListToCSVAsync(String filename, TaskProgressListener progress);
+
+  /**
+   * Loads the task list from a CSV file without blocking the caller.
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to, on a background thread.
+   * @return A future holding the malformed rows; cancelling it stops the load.
+   */
+  CompletableFuture<List<CsvRowError>> loadTaskListFromCSVAsync(String filename, TaskProgressListener progress);
+
   /**
    * Gets tasks filtered by completion status.
    * @param completed True to retrieve completed tasks, false for incomplete tasks.
@@ -83,6 +100,27 @@ public interface ITaskController {
    */
   List<Task> getTasksByDate(LocalDate filterDate);
 
+  /**
+   * Gets tasks that are not completed and were due before the current date.
+   * @param currentDate The source of the current date.
+   * @return A list containing the overdue tasks.
+   */
+  List<Task> getOverdueTasks(IDate currentDate);
+
+  /**
+   * Gets tasks that match a query combining several criteria.
+   * @param query The query to run.
+   * @return A list containing the matching tasks, sorted and limited as the query says.
+   */
+  List<Task> query(TaskQuery query);
+
+  /**
+   * Gets one page of the tasks that match a query.
+   * @param query The query to run, whose limit is the size of the page.
+   * @return The page, with the query for the page after it.
+   */
+  TaskPage queryPage(TaskQuery query);
+
   /**
    * Getsthe task with the specified ID.
    * @param taskId The ID of the task to retrieve.
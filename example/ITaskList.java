@@ -2,7 +2,10 @@ package org.example;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Interface representing a list of tasks.
@@ -15,6 +18,30 @@ public interface ITaskList {
    */
   void addTask(Task task);
 
+  /**
+   * Adds many tasks to the list in one step, as a single change.
+   * @param tasks The tasks to add.
+   */
+  void addAll(Collection<Task> tasks);
+
+  /**
+   * Adds the tasks of a stream to the list in one step, as a single change.
+   * @param tasks The tasks to add.
+   */
+  void addAll(Stream<Task> tasks);
+
+  /**
+   * Registers a listener that is told about every change to the list.
+   * @param listener The listener to add.
+   */
+  void addListener(TaskModelListener listener);
+
+  /**
+   * Unregisters a listener.
+   * @param listener The listener to remove.
+   */
+  void removeListener(TaskModelListener listener);
+
   /**
    * Removes a task from the list.
    * @param taskId The ID of the task to remove.
@@ -30,10 +57,30 @@ public interface ITaskList {
 
   /**
    * Gets all tasks in the list.
-   * @return A list containing all tasks.
+   * @return A read-only list containing all tasks.
    */
   List<Task> getAllTasks();
 
+  /**
+   * Gets an immutable snapshot of the tasks at the current version of the list.
+   * The snapshot is shared between callers until the list next changes.
+   * @return The snapshot of the current tasks.
+   */
+  TaskSnapshot snapshot();
+
+  /**
+   * Gets the current version of the list, which changes whenever the list changes.
+   * @return The version number.
+   */
+  long getVersion();
+
+  /**
+   * Checks whether a snapshot still reflects the current version of the list.
+   * @param snapshot The snapshot to check.
+   * @return True if the list has not changed since the snapshot was taken.
+   */
+  boolean isCurrent(TaskSnapshot snapshot);
+
   /**
    * Gets the task with the specified ID.
    * @param taskId The ID of the task to retrieve.
@@ -47,6 +94,73 @@ public interface ITaskList {
    */
   void markTaskCompleted(int taskId);
 
+  /**
+   * Changes the priority of a task in the list.
+   * @param taskId The ID of the task to update.
+   * @param priority The new priority for the task.
+   */
+  void setPriority(int taskId, Priority priority);
+
+  /**
+   * Gets the tasks with the specified priority.
+   * @param priority The priority to filter by.
+   * @return A list containing the tasks with the priority.
+   */
+  List<Task> getTasksByPriority(Priority priority);
+
+  /**
+   * Gets the tasks with the specified completion status.
+   * @param completed The completion status to filter by.
+   * @return A list containing the tasks with the completion status.
+   */
+  List<Task> getTasksByCompletion(boolean completed);
+
+  /**
+   * Gets the tasks due on or after the specified date.
+   * @param date The earliest due date to include.
+   * @return A list containing the tasks ordered by due date.
+   */
+  List<Task> getTasksByDate(LocalDate date);
+
+  /**
+   * Gets the tasks due between two dates, both inclusive.
+   * @param from The earliest due date to include.
+   * @param to The latest due date to include.
+   * @return A list containing the tasks ordered by due date.
+   */
+  List<Task> getTasksBetween(LocalDate from, LocalDate to);
+
+  /**
+   * Gets the tasks that are not completed and were due before the current date.
+   * @param currentDate The source of the current date.
+   * @return A list containing the overdue tasks ordered by due date.
+   */
+  List<Task> getOverdueTasks(IDate currentDate);
+
+  /**
+   * Gets the tasks that match a query combining several criteria.
+   * @param query The query to run.
+   * @return A list containing the matching tasks, sorted and limited as the query says.
+   */
+  List<Task> query(TaskQuery query);
+
+  /**
+   * Gets one page of the tasks that match a query.
+   * @param query The query to run, whose limit is the size of the page.
+   * @return The page, with the query for the page after it.
+   */
+  TaskPage queryPage(TaskQuery query);
+
+  /**
+   * Changes the description, due date and priority of a task in one step.
+   * @param taskId The ID of the task to edit.
+   * @param description The new description.
+   * @param dueDate The new due date.
+   * @param priority The new priority.
+   * @return True if the task was found and edited.
+   */
+  boolean editTask(int taskId, String description, LocalDate dueDate, Priority priority);
+
   /**
    * Updates the details of a task in the list.
    * @param task The task with updated details.
@@ -61,9 +175,48 @@ public interface ITaskList {
   void saveTasksToCSV(String filename) throws IOException;
 
   /**
-   * Loads tasks from a CSV file into the list.
+   * Saves the tasks in the list to a CSV file, syncing it to the disk as the policy says.
+   * @param filename The name of the CSV file.
+   * @param syncPolicy How hard the file is pushed to the disk before it replaces the old one.
+   * @throws IOException If an I/O error occurs while writing to the file.
+   */
+  void saveTasksToCSV(String filename, SyncPolicy syncPolicy) throws IOException;
+
+  /**
+   * Saves the tasks in the list to a CSV file on a background thread.
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to.
+   * @return A future that completes when the file is saved; cancelling it stops the save.
+   */
+  CompletableFuture<Void> saveTasksToCSVAsync(String filename, TaskProgressListener progress);
+
+  /**
+   * Loads tasks from a CSV file into the list on a background thread.
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to.
+   * @return A future holding the malformed rows; cancelling it stops the load.
+   */
+  CompletableFuture<List<CsvRowError>> loadTasksFromCSVAsync(String filename, TaskProgressListener progress);
+
+  /**
+   * Saves the tasks in the list to a binary task file.
+   * @param filename The name of the binary file.
+   * @throws IOException If an I/O error occurs while writing to the file.
+   */
+  void saveTasksToBinary(String filename) throws IOException;
+
+  /**
+   * Loads tasks from a binary task file into the list.
+   * @param filename The name of the binary file.
+   * @throws IOException If an I/O error occurs while reading the file or it is corrupt.
+   */
+  void loadTasksFromBinary(String filename) throws IOException;
+
+  /**
+   * Loads tasks from a CSV file into the list, skipping rows that can't be parsed.
    * @param filename The name of the CSV file.
+   * @return The malformed rows of the file, empty if every row was loaded.
    * @throws IOException If an I/O error occurs while reading from the file.
    */
-  void loadTasksFromCSV(String filename) throws IOException;
+  List<CsvRowError> loadTasksFromCSV(String filename) throws IOException;
 }
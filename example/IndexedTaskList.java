@@ -0,0 +1,164 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Array backed implementation of TaskListADT with a hash index on the task ID.
+ * Tasks are appended to the end of an array in O(1) and looked up, updated and removed
+ * through the ID index in O(1), while the array keeps the insertion order of the tasks.
+ */
+public class IndexedTaskList implements TaskListADT {
+  private static final int MIN_COMPACT_SIZE = 64; // Don't bother compacting tiny lists
+
+  private final ArrayList<Task> slots; // Tasks in insertion order, removed tasks leave a null slot
+  private Map<Integer, Integer> slotById; // Task ID -> position in slots
+  private int removedCount; // Number of null slots waiting to be compacted
+
+  // Constructor to initialize an empty list
+  public IndexedTaskList() {
+    this.slots = new ArrayList<>();
+    this.slotById = new HashMap<>();
+    this.removedCount = 0;
+  }
+
+  /**
+   * Adds a new task to the end of the list.
+   * A task with the same ID as an existing task replaces it in place.
+   *
+   * @param task The task to add.
+   */
+  public void addTask(Task task) {
+    Integer slot = slotById.get(task.getId());
+    if (slot != null) {
+      slots.set(slot, task);
+      return;
+    }
+    slotById.put(task.getId(), slots.size());
+    slots.add(task);
+  }
+
+  /**
+   * Adds tasks to the end of the list, making room for all of them first.
+   * A task with the same ID as an existing task replaces it in place.
+   *
+   * @param tasks The tasks to add.
+   * @return The tasks, as stored.
+   */
+  @Override
+  public List<Task> addAll(Collection<Task> tasks) {
+    slots.ensureCapacity(slots.size() + tasks.size());
+    if (slotById.isEmpty()) {
+      // Size the index for the whole batch, so it isn't rehashed while it fills up
+      slotById = new HashMap<>((int) Math.min(Integer.MAX_VALUE, tasks.size() * 4L / 3 + 1));
+    }
+    for (Task task : tasks) {
+      addTask(task);
+    }
+    return tasks instanceof List ? (List<Task>) tasks : new ArrayList<>(tasks);
+  }
+
+  /**
+   * Removes a task with the specified ID from the list.
+   *
+   * @param taskId The ID of the task to remove.
+   * @return True if the list held the task.
+   */
+  public boolean removeTask(int taskId) {
+    Integer slot = slotById.remove(taskId);
+    if (slot == null) {
+      return false; // Task not found
+    }
+    slots.set(slot, null);
+    removedCount++;
+    if (removedCount >= MIN_COMPACT_SIZE && removedCount > slots.size() / 2) {
+      compact();
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves a task by its ID.
+   *
+   * @param taskId The ID of the task to retrieve.
+   * @return The task with the specified ID, or null if not found.
+   */
+  public Task getTaskById(int taskId) {
+    Integer slot = slotById.get(taskId);
+    return slot == null ? null : slots.get(slot);
+  }
+
+  /**
+   * Retrieves all tasks in insertion order.
+   *
+   * @return A list containing all tasks.
+   */
+  public List<Task> getAllTasks() {
+    List<Task> allTasks = new ArrayList<>(slotById.size());
+    for (Task task : slots) {
+      if (task != null) {
+        allTasks.add(task);
+      }
+    }
+    return allTasks;
+  }
+
+  /**
+   * Marks a task with the specified ID as completed.
+   *
+   * @param taskId The ID of the task to mark as completed.
+   */
+  public void markTaskCompleted(int taskId) {
+    Task task = getTaskById(taskId);
+    if (task == null) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    task.setCompleted(true);
+  }
+
+  /**
+   * Changes the due date of a task with the specified ID.
+   *
+   * @param taskId  The ID of the task to change the due date for.
+   * @param newDate The new due date for the task.
+   */
+  public void changeTaskDate(int taskId, LocalDate newDate) {
+    Task task = getTaskById(taskId);
+    if (task == null) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    task.setDate(newDate);
+  }
+
+  /**
+   * Gets the number of tasks in the list.
+   *
+   * @return The number of tasks.
+   */
+  public int size() {
+    return slotById.size();
+  }
+
+  // Drops the null slots left behind by removals and re-points the index at the moved tasks
+  private void compact() {
+    int write = 0;
+    for (int read = 0; read < slots.size(); read++) {
+      Task task = slots.get(read);
+      if (task != null) {
+        if (write != read) {
+          slots.set(write, task);
+          slotById.put(task.getId(), write);
+        }
+        write++;
+      }
+    }
+    slots.subList(write, slots.size()).clear();
+    removedCount = 0;
+  }
+}
@@ -0,0 +1,165 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from int keys to non-negative int values that stores both in plain int arrays,
+ * so that it needs no boxed Integer or entry object per mapping.
+ * Uses open addressing with linear probing; removals shift the following entries back
+ * instead of leaving tombstones.
+ */
+final class IntIntHashMap {
+  static final int MISSING = -1; // Returned by get and remove when the key is not present
+
+  private static final int MIN_CAPACITY = 16;
+
+  private int[] keys;
+  private int[] values; // MISSING marks a free slot
+  private int size;
+
+  // Constructor to initialize an empty map
+  IntIntHashMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Initializes an empty map that can hold the specified number of mappings without resizing.
+   *
+   * @param expectedSize The number of mappings expected.
+   */
+  IntIntHashMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 / 4 < expectedSize) {
+      capacity <<= 1;
+    }
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    Arrays.fill(values, MISSING);
+  }
+
+  /**
+   * Gets the value mapped to a key.
+   *
+   * @param key The key to look up.
+   * @return The value, or MISSING if the key is not present.
+   */
+  int get(int key) {
+    int mask = keys.length - 1;
+    for (int i = slotFor(key, mask); values[i] != MISSING; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+    return MISSING;
+  }
+
+  /**
+   * Maps a key to a value, replacing any previous value.
+   *
+   * @param key The key.
+   * @param value The value, which must not be negative.
+   */
+  void put(int key, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must not be negative: " + value);
+    }
+    if ((size + 1) * 4 > keys.length * 3) {
+      resize(keys.length << 1);
+    }
+    int mask = keys.length - 1;
+    int i = slotFor(key, mask);
+    while (values[i] != MISSING) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    size++;
+  }
+
+  /**
+   * Removes the mapping for a key.
+   *
+   * @param key The key to remove.
+   * @return The value that was mapped to the key, or MISSING if the key was not present.
+   */
+  int remove(int key) {
+    int mask = keys.length - 1;
+    int i = slotFor(key, mask);
+    while (values[i] != MISSING && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    if (values[i] == MISSING) {
+      return MISSING;
+    }
+    int removed = values[i];
+    // Shift back later entries of the probe run that would no longer be reachable
+    int free = i;
+    for (int j = (i + 1) & mask; values[j] != MISSING; j = (j + 1) & mask) {
+      int home = slotFor(keys[j], mask);
+      if (((j - home) & mask) >= ((j - free) & mask)) {
+        keys[free] = keys[j];
+        values[free] = values[j];
+        free = j;
+      }
+    }
+    values[free] = MISSING;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Gets the number of mappings in the map.
+   *
+   * @return The number of mappings.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Makes room for the specified number of mappings, so the map isn't resized while it fills up.
+   *
+   * @param expectedSize The number of mappings expected.
+   */
+  void ensureCapacity(int expectedSize) {
+    int capacity = keys.length;
+    while (capacity * 3 / 4 < expectedSize) {
+      capacity <<= 1;
+    }
+    if (capacity != keys.length) {
+      resize(capacity);
+    }
+  }
+
+  /**
+   * Removes all mappings.
+   */
+  void clear() {
+    Arrays.fill(values, MISSING);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, MISSING);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != MISSING) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  // Spreads the key bits so that sequential IDs don't cluster in neighbouring slots
+  private static int slotFor(int key, int mask) {
+    int h = key * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
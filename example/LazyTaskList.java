@@ -0,0 +1,535 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Implementation of TaskListADT over a CSV task file that is too large to load up front.
+ * Opening the list only needs a table from task ID to the position of the task's row in the
+ * file. The table is kept in a sidecar file next to the task file, sorted by ID and memory
+ * mapped, so reopening a file takes the same time whatever its size. When the sidecar is
+ * missing or older than the task file, the task file is scanned once to rebuild it.
+ *
+ * <p>A task is only parsed when it is asked for. Parsed tasks are kept in an LRU cache of
+ * bounded size. Tasks that are added or changed after opening are pinned in memory until the
+ * list is closed, and removed tasks are remembered by ID; the task file itself is never
+ * modified. Saving the model writes a new file that includes the changes. Rows are always
+ * read through the channel opened with the list, so a new file saved over the same path
+ * doesn't mix with the one the index was built from.
+ */
+public class LazyTaskList implements TaskListADT, Closeable {
+  static final String INDEX_SUFFIX = ".idx";
+  static final int DEFAULT_CACHE_SIZE = 10_000;
+
+  private static final int INDEX_MAGIC = 0x544B4958; // "TKIX"
+  private static final int INDEX_VERSION = 3; // 2 kept rows that don't parse, 1 missed rows after a lone quote
+  private static final int INDEX_HEADER_SIZE = 40; // magic, version, file size, modified, rows, count
+  private static final int INDEX_ENTRY_SIZE = 16; // id (int), row length (int), row offset (long)
+  private static final int SCAN_BUFFER_SIZE = 1 << 20;
+  private static final int READ_AHEAD_SIZE = 64 << 10; // Rows near each other are read in one call
+
+  private final Path file;
+  private final FileChannel channel;
+  private final ByteBuffer index; // Sorted entries after the header
+  private final int entryCount;
+  private final ByteBuffer readAhead = ByteBuffer.allocate(READ_AHEAD_SIZE); // Guarded by this
+  private long readAheadOffset; // Offset in the file of the bytes in readAhead
+  private final Map<Integer, Task> cache; // Parsed tasks in access order, guarded by this
+  private final Map<Integer, Task> changed = new HashMap<>(); // Tasks of the file changed since opening
+  private final Map<Integer, Task> added = new LinkedHashMap<>(); // Tasks not in the file, in order
+  private final Set<Integer> removed = new HashSet<>(); // IDs of removed tasks of the file
+
+  private LazyTaskList(Path file, FileChannel channel, ByteBuffer index, int cacheSize) {
+    this.file = file;
+    this.channel = channel;
+    this.index = index;
+    this.entryCount = index.getInt(32);
+    this.readAhead.limit(0);
+    this.cache = new LinkedHashMap<Integer, Task>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+        return size() > cacheSize;
+      }
+    };
+    if (entryCount > 0) {
+      TaskIdAllocator.observe(idAt(entryCount - 1)); // New tasks must not reuse an ID of the file
+    }
+  }
+
+  /**
+   * Opens a task file with a cache of 10,000 parsed tasks.
+   *
+   * @param file The CSV task file.
+   * @return The list of the tasks in the file.
+   * @throws IOException If the file or its index can't be read.
+   */
+  public static LazyTaskList open(Path file) throws IOException {
+    return open(file, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Opens a task file, building the ID index next to it if it is missing or out of date.
+   *
+   * @param file The CSV task file, which must not be compressed.
+   * @param cacheSize The number of parsed tasks kept in memory.
+   * @return The list of the tasks in the file.
+   * @throws IOException If the file or its index can't be read, or the file is compressed.
+   */
+  public static LazyTaskList open(Path file, int cacheSize) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      if (Compression.detect(channel) != Compression.NONE) {
+        throw new IOException("A compressed task file can't be read by offset; decompress it first");
+      }
+      Path indexFile = file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+      ByteBuffer index = mapIndex(file, indexFile);
+      if (index == null) {
+        index = buildIndex(file, channel);
+        try {
+          ByteBuffer contents = index.duplicate();
+          AtomicFiles.replace(indexFile, SyncPolicy.NONE, indexChannel -> {
+            while (contents.hasRemaining()) {
+              indexChannel.write(contents);
+            }
+          });
+        } catch (IOException e) {
+          // The directory isn't writable; keep the index in memory and scan again next time
+        }
+      }
+      return new LazyTaskList(file, channel, index, cacheSize);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Adds a task to the list. A task with the ID of an existing task replaces it.
+   *
+   * @param task The task to add.
+   */
+  public synchronized void addTask(Task task) {
+    int id = task.getId();
+    cache.remove(id);
+    if (find(id) >= 0) {
+      removed.remove(id);
+      changed.put(id, task);
+    } else {
+      added.put(id, task);
+    }
+  }
+
+  /**
+   * Removes a task with the specified ID from the list.
+   *
+   * @param taskId The ID of the task to remove.
+   * @return True if the list held the task.
+   */
+  public synchronized boolean removeTask(int taskId) {
+    if (added.remove(taskId) != null) {
+      return true;
+    }
+    if (find(taskId) < 0 || !removed.add(taskId)) {
+      return false; // Task not found, or already removed
+    }
+    changed.remove(taskId);
+    cache.remove(taskId);
+    return true;
+  }
+
+  /**
+   * Retrieves a task by its ID, parsing its row of the file if it isn't in memory.
+   *
+   * @param taskId The ID of the task to retrieve.
+   * @return The task with the specified ID, or null if not found.
+   */
+  public synchronized Task getTaskById(int taskId) {
+    Task task = added.get(taskId);
+    if (task == null) {
+      task = changed.get(taskId);
+    }
+    if (task != null || removed.contains(taskId)) {
+      return task;
+    }
+    task = cache.get(taskId);
+    if (task == null) {
+      int entry = find(taskId);
+      if (entry < 0) {
+        return null;
+      }
+      task = readRow(entry);
+      if (task != null) {
+        cache.put(taskId, task);
+      }
+    }
+    return task;
+  }
+
+  /**
+   * Retrieves all tasks, the tasks of the file in ID order followed by the tasks added since
+   * opening. The list is built from the ID index and the changes made since opening, and a
+   * row of the file is only parsed when its task is read from the list, so getting the list
+   * takes time in proportion to the changes rather than to the size of the file. The list
+   * holds the tasks as they are now; later changes to this list don't show in it.
+   *
+   * @return A list containing all tasks.
+   */
+  public synchronized List<Task> getAllTasks() {
+    int[] removedEntries = new int[removed.size()];
+    int count = 0;
+    for (int id : removed) {
+      removedEntries[count++] = find(id);
+    }
+    Arrays.sort(removedEntries);
+    return new Snapshot(new HashMap<>(changed), removedEntries, new ArrayList<>(added.values()));
+  }
+
+  /**
+   * Marks a task with the specified ID as completed.
+   *
+   * @param taskId The ID of the task to mark as completed.
+   */
+  public synchronized void markTaskCompleted(int taskId) {
+    Task task = getTaskById(taskId);
+    if (task == null) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    task.setCompleted(true);
+    updateTask(task);
+  }
+
+  /**
+   * Changes the due date of a task with the specified ID.
+   *
+   * @param taskId  The ID of the task to change the due date for.
+   * @param newDate The new due date for the task.
+   */
+  public synchronized void changeTaskDate(int taskId, LocalDate newDate) {
+    Task task = getTaskById(taskId);
+    if (task == null) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    task.setDate(newDate);
+    updateTask(task);
+  }
+
+  /**
+   * Pins a changed task in memory, so the change isn't lost when the task leaves the cache.
+   *
+   * @param task The changed task.
+   */
+  @Override
+  public synchronized void updateTask(Task task) {
+    int id = task.getId();
+    if (added.containsKey(id)) {
+      added.put(id, task);
+    } else if (!removed.contains(id) && find(id) >= 0) {
+      changed.put(id, task);
+      cache.remove(id);
+    }
+  }
+
+  /**
+   * Gets the number of tasks in the list.
+   *
+   * @return The number of tasks.
+   */
+  public synchronized int size() {
+    return entryCount - removed.size() + added.size();
+  }
+
+  /**
+   * Closes the task file.
+   *
+   * @throws IOException If the file can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // Finds the index entry of an ID by binary search, or returns -1
+  private int find(int taskId) {
+    int low = 0;
+    int high = entryCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int id = idAt(mid);
+      if (id < taskId) {
+        low = mid + 1;
+      } else if (id > taskId) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private int idAt(int entry) {
+    return index.getInt(INDEX_HEADER_SIZE + entry * INDEX_ENTRY_SIZE);
+  }
+
+  // Gets the task of an index entry from the cache, or parses its row without caching it,
+  // so that reading every task of a snapshot doesn't push the tasks in use out of the cache
+  private synchronized Task fileTask(int entry) {
+    Task task = cache.get(idAt(entry));
+    return task != null ? task : readRow(entry);
+  }
+
+  // Reads and parses the row of an index entry. Rows are read ahead in blocks, as reading the
+  // tasks in ID order mostly reads the file from start to end.
+  private Task readRow(int entry) {
+    int position = INDEX_HEADER_SIZE + entry * INDEX_ENTRY_SIZE;
+    int length = index.getInt(position + 4);
+    long offset = index.getLong(position + 8);
+    if (length > READ_AHEAD_SIZE) {
+      byte[] row = new byte[length];
+      read(ByteBuffer.wrap(row), offset, length);
+      return TaskCsvReader.parseRow(row, length);
+    }
+    if (offset < readAheadOffset || offset + length > readAheadOffset + readAhead.limit()) {
+      readAhead.clear();
+      readAheadOffset = offset;
+      read(readAhead, offset, length);
+      readAhead.flip();
+    }
+    int from = (int) (offset - readAheadOffset);
+    return TaskCsvReader.parseRow(readAhead.array(), from, from + length);
+  }
+
+  // Reads from the file at an offset into a buffer, at least the specified number of bytes
+  private void read(ByteBuffer buffer, long offset, int length) {
+    try {
+      while (buffer.position() < length) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new EOFException("Task file " + file + " is shorter than its index");
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Maps the sidecar index if it exists and was built from the current task file
+  private static ByteBuffer mapIndex(Path file, Path indexFile) throws IOException {
+    if (!Files.exists(indexFile)) {
+      return null;
+    }
+    try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      if (indexChannel.size() < INDEX_HEADER_SIZE) {
+        return null;
+      }
+      MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+      index.order(ByteOrder.BIG_ENDIAN);
+      boolean current = index.getInt(0) == INDEX_MAGIC
+          && index.getInt(4) == INDEX_VERSION
+          && index.getLong(8) == Files.size(file)
+          && index.getLong(16) == Files.getLastModifiedTime(file).toMillis()
+          && indexChannel.size() == INDEX_HEADER_SIZE + (long) index.getInt(32) * INDEX_ENTRY_SIZE;
+      return current ? index : null;
+    }
+  }
+
+  // Scans the task file once for the ID, offset and length of every row and sorts them by ID
+  private static ByteBuffer buildIndex(Path file, FileChannel channel) throws IOException {
+    long size = channel.size();
+    long modified = Files.getLastModifiedTime(file).toMillis();
+    RowTable rows = new RowTable();
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    byte[] bytes = buffer.array();
+    long position = 0;
+    long rowStart = 0;
+    long id = 0;
+    boolean inId = true; // Still reading the first field of the row
+    boolean validId = false;
+    byte[] row = new byte[256]; // Bytes of the current row read before the buffer
+    int carried = 0;
+    // Splits rows as TaskCsvReader does, so that getAllTasks and getTaskById find the same tasks
+    CsvRowScanner scanner = new CsvRowScanner(TaskCsvReader.DEFAULT_MAX_ROW_SIZE);
+    while (true) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        byte b = bytes[i];
+        if (scanner.endsRow(b)) {
+          long rowEnd = position + i + 1;
+          if (validId && !scanner.isTooLong()) {
+            // Only rows that parse are indexed, so that every entry has a task
+            Task task;
+            if (rowStart >= position) {
+              task = TaskCsvReader.parseRow(bytes, (int) (rowStart - position), i + 1);
+            } else {
+              row = append(row, carried, bytes, 0, i + 1);
+              task = TaskCsvReader.parseRow(row, carried + i + 1);
+            }
+            if (task != null) {
+              rows.add((int) id, rowStart, rowEnd - rowStart);
+            }
+          }
+          rowStart = rowEnd;
+          carried = 0;
+          id = 0;
+          inId = true;
+          validId = false;
+        } else if (inId) {
+          if (b == ',') {
+            inId = false;
+          } else if (b >= '0' && b <= '9' && id <= Integer.MAX_VALUE / 10) {
+            id = id * 10 + (b - '0');
+            validId = id <= Integer.MAX_VALUE;
+          } else {
+            inId = false;
+            validId = false;
+          }
+        }
+      }
+      if ((inId || validId) && !scanner.isTooLong()) {
+        // The row goes on in the next read
+        int from = (int) Math.max(rowStart - position, 0);
+        row = append(row, carried, bytes, from, read);
+        carried += read - from;
+      }
+      position += read;
+    }
+    if (validId && !scanner.isTooLong() && TaskCsvReader.parseRow(row, carried) != null) {
+      rows.add((int) id, rowStart, position - rowStart); // Last row without a line break
+    }
+    return rows.toIndex(size, modified);
+  }
+
+  // Appends bytes to the carried part of a row, growing the array if needed
+  private static byte[] append(byte[] row, int carried, byte[] bytes, int from, int to) {
+    if (carried + to - from > row.length) {
+      row = Arrays.copyOf(row, Math.max(row.length * 2, carried + to - from));
+    }
+    System.arraycopy(bytes, from, row, carried, to - from);
+    return row;
+  }
+
+  /**
+   * The tasks of the list at the time getAllTasks was called. The tasks of the file are those
+   * of the index entries that were not removed, each taken from the changes pinned at that
+   * time, or else from the cache or its row of the file when it is read.
+   */
+  private class Snapshot extends AbstractList<Task> implements RandomAccess {
+    private final Map<Integer, Task> changed;
+    private final int[] removedEntries; // Sorted index entries of the removed tasks
+    private final List<Task> added;
+    private final int fileTasks;
+
+    Snapshot(Map<Integer, Task> changed, int[] removedEntries, List<Task> added) {
+      this.changed = changed;
+      this.removedEntries = removedEntries;
+      this.added = added;
+      this.fileTasks = entryCount - removedEntries.length;
+    }
+
+    @Override
+    public Task get(int i) {
+      if (i < 0 || i >= size()) {
+        throw new IndexOutOfBoundsException("Index " + i + " out of " + size());
+      }
+      if (i >= fileTasks) {
+        return added.get(i - fileTasks);
+      }
+      int entry = entryOf(i);
+      Task task = changed.get(idAt(entry));
+      return task != null ? task : fileTask(entry);
+    }
+
+    @Override
+    public int size() {
+      return fileTasks + added.size();
+    }
+
+    // Finds the index entry of the i-th task of the file that was not removed, which is the
+    // first entry with i + 1 such entries up to and including it
+    private int entryOf(int i) {
+      int low = i;
+      int high = i + removedEntries.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (mid + 1 - removedUpTo(mid) < i + 1) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    // Counts the removed entries up to and including an entry
+    private int removedUpTo(int entry) {
+      int found = Arrays.binarySearch(removedEntries, entry);
+      return found >= 0 ? found + 1 : -found - 1;
+    }
+  }
+
+  /**
+   * The rows found while scanning a task file, in file order.
+   */
+  private static class RowTable {
+    private long[] keys = new long[1024]; // ID in the high half, row number in the low half
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private int rows;
+
+    void add(int id, long offset, long length) {
+      if (rows == keys.length) {
+        keys = Arrays.copyOf(keys, rows * 2);
+        offsets = Arrays.copyOf(offsets, rows * 2);
+        lengths = Arrays.copyOf(lengths, rows * 2);
+      }
+      keys[rows] = (long) id << 32 | rows;
+      offsets[rows] = offset;
+      lengths[rows] = Math.toIntExact(length);
+      rows++;
+    }
+
+    // Sorts the rows by ID, keeping the last row of each ID, and lays them out as an index
+    ByteBuffer toIndex(long fileSize, long modified) {
+      Arrays.sort(keys, 0, rows);
+      int entries = 0;
+      for (int i = 0; i < rows; i++) {
+        if (i + 1 == rows || keys[i + 1] >>> 32 != keys[i] >>> 32) {
+          keys[entries++] = keys[i];
+        }
+      }
+      ByteBuffer index = ByteBuffer.allocate(INDEX_HEADER_SIZE + entries * INDEX_ENTRY_SIZE);
+      index.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putLong(fileSize).putLong(modified)
+          .putLong(rows).putInt(entries).putInt(0);
+      for (int i = 0; i < entries; i++) {
+        int row = (int) keys[i];
+        index.putInt((int) (keys[i] >>> 32)).putInt(lengths[row]).putLong(offsets[row]);
+      }
+      index.flip();
+      return index;
+    }
+  }
+}
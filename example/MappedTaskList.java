@@ -0,0 +1,458 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of TaskListADT that keeps fixed-width task records in a memory-mapped file.
+ * The task values live outside the Java heap, so garbage collection doesn't grow with the
+ * size of the list, and the file can be reopened after a restart without parsing anything.
+ * Opening a file only reads the ID of each record to rebuild the ID index.
+ * Like ColumnarTaskList, the list hands out Task views that read and write the records.
+ * Changes reach the disk when the operating system writes the mapped pages back, or on force
+ * and close. Pages are written back in no particular order and a record is not written in
+ * one step, so a crash before force can lose changes or leave a record half written.
+ *
+ * <p>File layout: a 64 byte header (magic, format version, record size, number of used
+ * records) followed by 128 byte records holding the ID, the epoch day of the due date,
+ * flags, the priority ordinal and up to 116 bytes of UTF-8 description.
+ */
+public class MappedTaskList implements TaskListADT, Closeable {
+  static final int MAX_DESCRIPTION_BYTES = 116;
+
+  private static final int MAGIC = 0x544B4D50; // "TKMP"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 64;
+  private static final int RECORD_SIZE = 128;
+  private static final int MIN_CAPACITY = 1024;
+
+  // Header field offsets
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 4;
+  private static final int HEADER_RECORD_SIZE = 8;
+  private static final int HEADER_SLOT_COUNT = 12;
+
+  // Record field offsets
+  private static final int ID = 0;
+  private static final int EPOCH_DAY = 4;
+  private static final int FLAGS = 8;
+  private static final int PRIORITY = 9;
+  private static final int DESCRIPTION_LENGTH = 10;
+  private static final int DESCRIPTION = 12;
+
+  private static final byte LIVE = 1;
+  private static final byte COMPLETED = 2;
+  private static final int NO_DATE = Integer.MIN_VALUE;
+  private static final byte NO_PRIORITY = -1;
+  private static final short NO_DESCRIPTION = -1;
+  private static final Priority[] PRIORITIES = Priority.values();
+
+  private final FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int capacity; // Number of records the current mapping has room for
+  private int slotCount; // Number of records used, including removed ones
+  private final IntIntHashMap slotById; // Task ID -> record slot, rebuilt on open
+
+  private MappedTaskList(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.slotById = new IntIntHashMap();
+    if (channel.size() < HEADER_SIZE) {
+      map(MIN_CAPACITY);
+      buffer.putInt(HEADER_MAGIC, MAGIC);
+      buffer.putInt(HEADER_VERSION, FORMAT_VERSION);
+      buffer.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+      setSlotCount(0);
+    } else {
+      map(Math.max(MIN_CAPACITY, (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE)));
+      if (buffer.getInt(HEADER_MAGIC) != MAGIC || buffer.getInt(HEADER_VERSION) != FORMAT_VERSION
+          || buffer.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE) {
+        throw new IOException("Not a task list file of a supported version");
+      }
+      slotCount = buffer.getInt(HEADER_SLOT_COUNT);
+      for (int slot = 0; slot < slotCount; slot++) {
+        if ((buffer.get(offset(slot) + FLAGS) & LIVE) != 0) {
+          slotById.put(buffer.getInt(offset(slot) + ID), slot);
+          TaskIdAllocator.observe(buffer.getInt(offset(slot) + ID));
+        }
+      }
+    }
+  }
+
+  /**
+   * Opens the task list stored in a file, creating an empty one if the file doesn't exist.
+   *
+   * @param file The file holding the task records.
+   * @return The task list backed by the file.
+   * @throws IOException If the file can't be opened or is not a task list file.
+   */
+  public static MappedTaskList open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      return new MappedTaskList(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Adds a task to the end of the list by writing its values to a record.
+   * A task with the same ID as an existing task overwrites it in place.
+   *
+   * @param task The task to add.
+   * @throws IllegalArgumentException If the description is longer than the record allows.
+   */
+  public void addTask(Task task) {
+    byte[] description = encodeDescription(task.getDescription());
+    int slot = slotById.get(task.getId());
+    boolean appended = slot == IntIntHashMap.MISSING;
+    if (appended) {
+      if (slotCount == capacity) {
+        grow(slotCount + 1);
+      }
+      slot = slotCount;
+    }
+    // Fill in the record before counting it, so the list never holds a record being written
+    int offset = offset(slot);
+    buffer.putInt(offset + ID, task.getId());
+    writeDate(slot, task.getDate());
+    writePriority(slot, task.getPriority());
+    writeDescription(slot, description);
+    buffer.put(offset + FLAGS, (byte) (LIVE | (task.getCompleted() ? COMPLETED : 0)));
+    if (appended) {
+      setSlotCount(slotCount + 1);
+      slotById.put(task.getId(), slot);
+    }
+  }
+
+  /**
+   * Adds tasks in one call. Every description is checked and room is made for all the tasks
+   * before any of them is written, so a batch that can't be stored leaves the list unchanged.
+   *
+   * @param tasks The tasks to add.
+   * @return Views of the stored tasks.
+   * @throws IllegalArgumentException If a description is longer than the record allows.
+   */
+  @Override
+  public List<Task> addAll(Collection<Task> tasks) {
+    prepare(tasks);
+    return TaskListADT.super.addAll(tasks);
+  }
+
+  /**
+   * Adds tasks read from a file, renumbering those whose ID is taken. As with addAll, nothing
+   * is written unless every task can be stored.
+   *
+   * @param tasks The tasks to add.
+   * @return Views of the stored tasks.
+   * @throws IllegalArgumentException If a description is longer than the record allows.
+   */
+  @Override
+  public List<Task> addLoadedTasks(List<Task> tasks) {
+    prepare(tasks);
+    return TaskListADT.super.addLoadedTasks(tasks);
+  }
+
+  /**
+   * Adds a task and returns the view the list keeps for it.
+   *
+   * @param task The task to add.
+   * @return A view of the stored task.
+   */
+  @Override
+  public Task addTaskAndGet(Task task) {
+    addTask(task);
+    return new MappedTask(task.getId());
+  }
+
+  /**
+   * Removes a task with the specified ID from the list.
+   *
+   * @param taskId The ID of the task to remove.
+   * @return True if the list held the task.
+   */
+  public boolean removeTask(int taskId) {
+    int slot = slotById.remove(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      return false; // Task not found
+    }
+    buffer.put(offset(slot) + FLAGS, (byte) 0);
+    int removedCount = slotCount - slotById.size();
+    if (removedCount >= MIN_CAPACITY && removedCount > slotCount / 2) {
+      compact();
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves a view of the task with the specified ID.
+   *
+   * @param taskId The ID of the task to retrieve.
+   * @return A view of the task, or null if not found.
+   */
+  public Task getTaskById(int taskId) {
+    return slotById.get(taskId) == IntIntHashMap.MISSING ? null : new MappedTask(taskId);
+  }
+
+  /**
+   * Retrieves views of all tasks in insertion order.
+   *
+   * @return A list containing all tasks.
+   */
+  public List<Task> getAllTasks() {
+    List<Task> allTasks = new ArrayList<>(slotById.size());
+    for (int slot = 0; slot < slotCount; slot++) {
+      if ((buffer.get(offset(slot) + FLAGS) & LIVE) != 0) {
+        allTasks.add(new MappedTask(buffer.getInt(offset(slot) + ID)));
+      }
+    }
+    return allTasks;
+  }
+
+  /**
+   * Marks a task with the specified ID as completed.
+   *
+   * @param taskId The ID of the task to mark as completed.
+   */
+  public void markTaskCompleted(int taskId) {
+    int slot = slotById.get(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    writeCompleted(slot, true);
+  }
+
+  /**
+   * Changes the due date of a task with the specified ID.
+   *
+   * @param taskId  The ID of the task to change the due date for.
+   * @param newDate The new due date for the task.
+   */
+  public void changeTaskDate(int taskId, LocalDate newDate) {
+    int slot = slotById.get(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    writeDate(slot, newDate);
+  }
+
+  /**
+   * Gets the number of tasks in the list.
+   *
+   * @return The number of tasks.
+   */
+  public int size() {
+    return slotById.size();
+  }
+
+  /**
+   * Writes any changes still held in memory to the file.
+   */
+  public void force() {
+    buffer.force();
+  }
+
+  /**
+   * Writes any changes to the file and closes it. The list must not be used afterwards.
+   *
+   * @throws IOException If an I/O error occurs.
+   */
+  @Override
+  public void close() throws IOException {
+    force();
+    channel.close();
+  }
+
+  private static int offset(int slot) {
+    return HEADER_SIZE + slot * RECORD_SIZE;
+  }
+
+  // Maps the header and the specified number of records, extending the file if needed
+  private void map(int recordCapacity) throws IOException {
+    long size = (long) HEADER_SIZE + (long) recordCapacity * RECORD_SIZE;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Task list file can't hold more than "
+          + (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE + " records");
+    }
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    capacity = recordCapacity;
+  }
+
+  // Checks the descriptions of a batch and makes room for it before any task is written
+  private void prepare(Collection<Task> tasks) {
+    for (Task task : tasks) {
+      encodeDescription(task.getDescription());
+    }
+    if (slotCount + (long) tasks.size() > capacity) {
+      grow((int) Math.min(Integer.MAX_VALUE, slotCount + (long) tasks.size()));
+    }
+  }
+
+  // Maps room for at least the specified number of records, at least doubling the capacity
+  private void grow(int records) {
+    try {
+      map((int) Math.min(Integer.MAX_VALUE, Math.max(capacity * 2L, records)));
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not grow the task list file: " + e.getMessage(), e);
+    }
+  }
+
+  private void setSlotCount(int count) {
+    slotCount = count;
+    buffer.putInt(HEADER_SLOT_COUNT, count);
+  }
+
+  // Moves the live records down over the removed ones, keeping their order
+  private void compact() {
+    byte[] record = new byte[RECORD_SIZE];
+    int write = 0;
+    for (int read = 0; read < slotCount; read++) {
+      if ((buffer.get(offset(read) + FLAGS) & LIVE) == 0) {
+        continue;
+      }
+      if (write != read) {
+        buffer.get(offset(read), record);
+        buffer.put(offset(write), record);
+        slotById.put(buffer.getInt(offset(write) + ID), write);
+      }
+      write++;
+    }
+    setSlotCount(write);
+  }
+
+  // Looks up the slot of a task that a view refers to
+  private int slotOf(int taskId) {
+    int slot = slotById.get(taskId);
+    if (slot == IntIntHashMap.MISSING) {
+      throw new IllegalStateException("Task with ID " + taskId + " is no longer in the list");
+    }
+    return slot;
+  }
+
+  private static byte[] encodeDescription(String description) {
+    if (description == null) {
+      return null;
+    }
+    byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_DESCRIPTION_BYTES) {
+      throw new IllegalArgumentException("Description is longer than "
+          + MAX_DESCRIPTION_BYTES + " bytes: " + description);
+    }
+    return bytes;
+  }
+
+  private void writeDescription(int slot, byte[] description) {
+    int offset = offset(slot);
+    if (description == null) {
+      buffer.putShort(offset + DESCRIPTION_LENGTH, NO_DESCRIPTION);
+      return;
+    }
+    buffer.putShort(offset + DESCRIPTION_LENGTH, (short) description.length);
+    buffer.put(offset + DESCRIPTION, description);
+  }
+
+  private String readDescription(int slot) {
+    int offset = offset(slot);
+    short length = buffer.getShort(offset + DESCRIPTION_LENGTH);
+    if (length == NO_DESCRIPTION) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(offset + DESCRIPTION, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void writeDate(int slot, LocalDate date) {
+    buffer.putInt(offset(slot) + EPOCH_DAY, date == null ? NO_DATE : Math.toIntExact(date.toEpochDay()));
+  }
+
+  private LocalDate readDate(int slot) {
+    int epochDay = buffer.getInt(offset(slot) + EPOCH_DAY);
+    return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+
+  private void writePriority(int slot, Priority priority) {
+    buffer.put(offset(slot) + PRIORITY, priority == null ? NO_PRIORITY : (byte) priority.ordinal());
+  }
+
+  private Priority readPriority(int slot) {
+    byte ordinal = buffer.get(offset(slot) + PRIORITY);
+    return ordinal == NO_PRIORITY ? null : PRIORITIES[ordinal];
+  }
+
+  private void writeCompleted(int slot, boolean completed) {
+    int offset = offset(slot) + FLAGS;
+    byte flags = buffer.get(offset);
+    buffer.put(offset, (byte) (completed ? flags | COMPLETED : flags & ~COMPLETED));
+  }
+
+  private boolean readCompleted(int slot) {
+    return (buffer.get(offset(slot) + FLAGS) & COMPLETED) != 0;
+  }
+
+  /**
+   * A Task that reads and writes its values in the mapped record of the list.
+   */
+  private class MappedTask extends Task {
+
+    MappedTask(int id) {
+      super(id, null, null, false, null);
+    }
+
+    @Override
+    public String getDescription() {
+      return readDescription(slotOf(getId()));
+    }
+
+    @Override
+    public void setDescription(String description) {
+      writeDescription(slotOf(getId()), encodeDescription(description));
+      changed();
+    }
+
+    @Override
+    public LocalDate getDate() {
+      return readDate(slotOf(getId()));
+    }
+
+    @Override
+    public void setDate(LocalDate date) {
+      writeDate(slotOf(getId()), date);
+      changed();
+    }
+
+    @Override
+    public boolean getCompleted() {
+      return readCompleted(slotOf(getId()));
+    }
+
+    @Override
+    public void setCompleted(boolean completed) {
+      writeCompleted(slotOf(getId()), completed);
+      changed();
+    }
+
+    @Override
+    public Priority getPriority() {
+      return readPriority(slotOf(getId()));
+    }
+
+    @Override
+    public void setPriority(Priority priority) {
+      writePriority(slotOf(getId()), priority);
+      changed();
+    }
+  }
+}
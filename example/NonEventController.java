@@ -3,7 +3,7 @@ package org.example;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JOptionPane;
 
 /**
@@ -43,13 +43,7 @@ public class NonEventController implements ITaskController {
 
   @Override
   public void editTask(int taskId, String description, LocalDate dueDate, Priority priority) {
-    Task taskToUpdate = model.getTaskById(taskId);
-    if (taskToUpdate != null) {
-      taskToUpdate.setDescription(description);
-      taskToUpdate.setDate(dueDate);
-      taskToUpdate.setPriority(priority);
-      model.updateTask();
-    } else {
+    if (!model.editTask(taskId, description, dueDate, priority)) {
       System.out.println("Task not found with ID: " + taskId);
     }
   }
@@ -72,32 +66,56 @@ public class NonEventController implements ITaskController {
   @Override
   public void loadTaskListFromCSV(String filename) {
     try {
-      model.loadTasksFromCSV(filename);
-      JOptionPane.showMessageDialog(null, "Task list loaded from CSV file: " + filename, "Success", JOptionPane.INFORMATION_MESSAGE);
+      List<CsvRowError> errors = model.loadTasksFromCSV(filename);
+      if (errors.isEmpty()) {
+        JOptionPane.showMessageDialog(null, "Task list loaded from CSV file: " + filename, "Success", JOptionPane.INFORMATION_MESSAGE);
+      } else {
+        JOptionPane.showMessageDialog(null, "Task list loaded from CSV file: " + filename + "\n"
+            + CsvRowError.summarize(errors), "Loaded with errors", JOptionPane.WARNING_MESSAGE);
+      }
     } catch (IOException e) {
       JOptionPane.showMessageDialog(null, "Error loading tasks from CSV: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
     }
   }
 
+  @Override
+  public CompletableFuture<Void> saveTaskListToCSVAsync(String filename, TaskProgressListener progress) {
+    return model.saveTasksToCSVAsync(filename, progress);
+  }
+
+  @Override
+  public CompletableFuture<List<CsvRowError>> loadTaskListFromCSVAsync(String filename, TaskProgressListener progress) {
+    return model.loadTasksFromCSVAsync(filename, progress);
+  }
+
   @Override
   public List<Task> getTasksByCompletion(boolean completed) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.isCompleted() == completed)
-        .collect(Collectors.toList());
+    return model.getTasksByCompletion(completed);
   }
 
   @Override
   public List<Task> getTasksByPriority(Priority priority) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.getPriority() == priority)
-        .collect(Collectors.toList());
+    return model.getTasksByPriority(priority);
   }
 
   @Override
   public List<Task> getTasksByDate(LocalDate filterDate) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.getDueDate().isEqual(filterDate) || task.getDueDate().isAfter(filterDate))
-        .collect(Collectors.toList());
+    return model.getTasksByDate(filterDate);
+  }
+
+  @Override
+  public List<Task> getOverdueTasks(IDate currentDate) {
+    return model.getOverdueTasks(currentDate);
+  }
+
+  @Override
+  public List<Task> query(TaskQuery query) {
+    return model.query(query);
+  }
+
+  @Override
+  public TaskPage queryPage(TaskQuery query) {
+    return model.queryPage(query);
   }
 
   @Override
@@ -0,0 +1,162 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Saves a TaskModel to a directory of CSV segment files, rewriting only the segments that
+ * hold tasks changed since the last save, so a save costs time in proportion to the number
+ * of edits rather than the size of the list.
+ *
+ * <p>Each segment holds the tasks of a fixed range of IDs, {@code segment-N.csv} the IDs from
+ * N * SEGMENT_SPAN up to the next segment, in ID order. Segments are replaced atomically one
+ * by one. A crash during a save can leave some segments saved and others not, but never a
+ * partly written segment, and every task is always in exactly one segment.
+ *
+ * <p>The model tracks the changed tasks, through its methods and through the setters of the
+ * tasks it hands out. A save that fails puts the changes back, so the next save retries them.
+ * A dirty segment is gathered by looking up each ID of its range, so the model should keep
+ * its tasks in a list with an ID index, such as an IndexedTaskList.
+ */
+public class SegmentedTaskStore {
+  static final int SEGMENT_SPAN = 4096; // Task IDs per segment
+
+  private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.csv");
+
+  private final Path directory;
+  private final TaskModel model;
+  private final Set<Integer> segmentsOnDisk; // Numbers of the segments that have a file
+
+  private SegmentedTaskStore(Path directory, TaskModel model, Set<Integer> segmentsOnDisk) {
+    this.directory = directory;
+    this.model = model;
+    this.segmentsOnDisk = segmentsOnDisk;
+  }
+
+  /**
+   * Loads the tasks saved in a directory into an empty model. The directory is created if it
+   * doesn't exist. Rows of a segment that can't be read are reported and skipped.
+   *
+   * @param directory The directory holding the segments.
+   * @param model The model to load into and save from.
+   * @return The store, through which the model is saved.
+   * @throws IOException If the directory or a segment can't be read.
+   */
+  public static SegmentedTaskStore open(Path directory, TaskModel model) throws IOException {
+    Files.createDirectories(directory);
+    Set<Integer> segments = new TreeSet<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          segments.add(Integer.parseInt(matcher.group(1)));
+        }
+      });
+    }
+    TaskBulkLoader loader = model.bulkLoader();
+    TaskCsvReader reader = new TaskCsvReader();
+    for (int segment : segments) {
+      TaskCsvReader.Result result = reader.read(segmentFile(directory, segment));
+      if (!result.getErrors().isEmpty()) {
+        System.out.println("Segment " + segment + ": " + CsvRowError.summarize(result.getErrors()));
+      }
+      loader.addAll(result.getTasks());
+    }
+    loader.load();
+    model.takeChangedTaskIds(); // What was just loaded is already saved
+    return new SegmentedTaskStore(directory, model, segments);
+  }
+
+  /**
+   * Saves the changes made to the model since the last save, rewriting only the segments
+   * that hold a changed task. Segments left without tasks are deleted.
+   *
+   * @return The number of segments rewritten or deleted.
+   * @throws IOException If a segment can't be written. The changes are kept for the next save.
+   */
+  public synchronized int save() throws IOException {
+    Set<Integer> changed = model.takeChangedTaskIds();
+    try {
+      TreeMap<Integer, List<Task>> dirty = changed == null ? allSegments() : segmentsOf(changed);
+      for (Map.Entry<Integer, List<Task>> segment : dirty.entrySet()) {
+        writeSegment(segment.getKey(), segment.getValue());
+      }
+      return dirty.size();
+    } catch (IOException | RuntimeException e) {
+      model.restoreChangedTaskIds(changed);
+      throw e;
+    }
+  }
+
+  // Collects the current tasks of the segments holding the changed IDs, looked up by ID
+  private TreeMap<Integer, List<Task>> segmentsOf(Set<Integer> changed) {
+    TreeMap<Integer, List<Task>> segments = new TreeMap<>();
+    for (int taskId : changed) {
+      segments.putIfAbsent(segmentOf(taskId), null);
+    }
+    for (Map.Entry<Integer, List<Task>> segment : segments.entrySet()) {
+      List<Task> tasks = new ArrayList<>();
+      long first = (long) segment.getKey() * SEGMENT_SPAN;
+      for (long id = first; id < first + SEGMENT_SPAN && id <= Integer.MAX_VALUE; id++) {
+        Task task = model.getTaskById((int) id);
+        if (task != null) {
+          addCopy(tasks, task);
+        }
+      }
+      segment.setValue(tasks);
+    }
+    return segments;
+  }
+
+  // Groups all current tasks by segment, including segments on disk that are now empty
+  private TreeMap<Integer, List<Task>> allSegments() {
+    TreeMap<Integer, List<Task>> segments = new TreeMap<>();
+    for (int segment : segmentsOnDisk) {
+      segments.put(segment, new ArrayList<>());
+    }
+    for (Task task : model.snapshot()) {
+      addCopy(segments.computeIfAbsent(segmentOf(task.getId()), segment -> new ArrayList<>()), task);
+    }
+    for (List<Task> tasks : segments.values()) {
+      tasks.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+    }
+    return segments;
+  }
+
+  // Copies the task, so that a row isn't torn by a change made while it is written
+  private void addCopy(List<Task> tasks, Task task) {
+    Task copy = model.detachedCopy(task);
+    if (copy != null) {
+      tasks.add(copy);
+    }
+  }
+
+  private void writeSegment(int segment, List<Task> tasks) throws IOException {
+    Path file = segmentFile(directory, segment);
+    if (tasks.isEmpty()) {
+      Files.deleteIfExists(file);
+      segmentsOnDisk.remove(segment);
+    } else {
+      new TaskCsvWriter().write(file, tasks);
+      segmentsOnDisk.add(segment);
+    }
+  }
+
+  private static int segmentOf(int taskId) {
+    return taskId / SEGMENT_SPAN;
+  }
+
+  static Path segmentFile(Path directory, int segment) {
+    return directory.resolve(String.format("segment-%08d.csv", segment));
+  }
+}
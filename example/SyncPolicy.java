@@ -0,0 +1,27 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * How much effort is spent making data written to a file survive a crash of the machine.
+ */
+public enum SyncPolicy {
+  /** Leaves flushing to the operating system. A rename may reach the disk before the data. */
+  NONE,
+  /** Forces the file contents to the disk, for example before a rename. */
+  DATA,
+  /** Also forces the file metadata and the directory entry created by a rename. */
+  FULL;
+
+  /**
+   * Forces the data written through a channel to the disk as this policy says.
+   * @param channel The channel to force.
+   * @throws IOException If the data can't be forced.
+   */
+  void force(FileChannel channel) throws IOException {
+    if (this != NONE) {
+      channel.force(this == FULL);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.example;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.Objects;
 
 
@@ -8,12 +9,21 @@ import java.util.Objects;
  * Represents a task with a unique ID, description, date, completion status, and priority.
  */
 public class Task implements ITask {
-  private static int nextId = 1; // Static variable to track the next available ID
+  /**
+   * Orders tasks by priority, RED first, then by due date, earliest first, then by ID.
+   * Tasks without a priority or due date come after those with one.
+   */
+  public static final Comparator<Task> BY_PRIORITY_AND_DUE_DATE =
+      Comparator.comparing(Task::getPriority, Comparator.nullsLast(Comparator.<Priority>naturalOrder()))
+          .thenComparing(Task::getDueDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+          .thenComparingInt(Task::getId);
+
   private final int id; // Unique ID for each task
   private String description;
   private LocalDate date;
   private boolean completed;
   private Priority priority;
+  private volatile TaskChanges changes; // Told about changes made through the setters, if tracked
 
   /**
    * Constructs a task with the specified description, date, completion status, and priority.
@@ -23,7 +33,25 @@ public class Task implements ITask {
    * @param priority The priority of the task.
    */
   public Task(String description, LocalDate date, boolean completed, Priority priority) {
-    this.id = nextId++; // increment ID numbers
+    this.id = TaskIdAllocator.next(); // allocate a new unique ID
+    this.description = description;
+    this.date = date;
+    this.completed = completed;
+    this.priority = priority;
+  }
+
+  /**
+   * Constructs a task that already has an ID, for example one loaded from a file.
+   * The ID is reserved so that it is never allocated to a new task.
+   * @param id The ID of the task.
+   * @param description The description of the task.
+   * @param date The due date of the task.
+   * @param completed The completion status of the task.
+   * @param priority The priority of the task.
+   */
+  public Task(int id, String description, LocalDate date, boolean completed, Priority priority) {
+    TaskIdAllocator.observe(id);
+    this.id = id;
     this.description = description;
     this.date = date;
     this.completed = completed;
@@ -32,11 +60,7 @@ public class Task implements ITask {
 
   @Override
   public void printTask() {
-    System.out.println("Task ID: " + id);
-    System.out.println("Description: " + description);
-    System.out.println("Date: " + date);
-    System.out.println("Completed: " + completed);
-    System.out.println("Priority: " + priority);
+    System.out.println(this);
   }
 
   @Override
@@ -52,6 +76,7 @@ public class Task implements ITask {
   @Override
   public void setDescription(String description) {
     this.description = description;
+    changed();
   }
 
   @Override
@@ -62,6 +87,7 @@ public class Task implements ITask {
   @Override
   public void setDate(LocalDate date) {
     this.date = date;
+    changed();
   }
 
   @Override
@@ -72,6 +98,7 @@ public class Task implements ITask {
   @Override
   public void setCompleted(boolean completed) {
     this.completed = completed;
+    changed();
   }
 
   @Override
@@ -82,31 +109,63 @@ public class Task implements ITask {
   @Override
   public void setPriority(Priority priority) {
     this.priority = priority;
+    changed();
+  }
+
+  /**
+   * Reports later changes made through the setters to a change set, for example the one of
+   * the model that holds this task.
+   * @param changes The change set to report to.
+   */
+  void trackChanges(TaskChanges changes) {
+    // Reads hand out tasks that are mostly tracked already, so they only read the field
+    if (this.changes != changes) {
+      this.changes = changes;
+    }
+  }
+
+  // Called by every setter, including those of subclasses that keep the values elsewhere
+  void changed() {
+    TaskChanges tracker = changes;
+    if (tracker != null) {
+      tracker.changed(id);
+    }
   }
 
   @Override
   public void changeDate(IDate newDate) {
-    this.date = newDate.getCurrentDate();
+    setDate(newDate.getCurrentDate());
   }
 
   @Override
   public void changeCompletion() {
-    this.completed = !this.completed;
+    setCompleted(!getCompleted());
   }
 
+  // The methods below go through the getters, so subclasses that keep the task values
+  // elsewhere only need to override the getters and setters
+
   @Override
   public String toCSVString() {
-    return String.format("%d,%s,%s,%s,%s", id, description, date, completed, priority);
+    return String.format("%d,%s,%s,%s,%s", getId(), quoteForCSV(getDescription()), getDate(), getCompleted(), getPriority());
+  }
+
+  // Encloses a value in double quotes if it contains a comma, quote or line break (RFC 4180)
+  private static String quoteForCSV(String value) {
+    if (value == null || value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
   }
 
   @Override
   public boolean isCompleted() {
-    return completed;
+    return getCompleted();
   }
 
   @Override
   public LocalDate getDueDate() {
-    return date;
+    return getDate();
   }
 
   @Override
@@ -114,29 +173,34 @@ public class Task implements ITask {
     if (this == obj) return true;
     if (obj == null || getClass() != obj.getClass()) return false;
     Task task = (Task) obj;
-    return completed == task.completed &&
-        Objects.equals(description, task.description) &&
-        Objects.equals(date, task.date) &&
-        priority == task.priority;
+    return getCompleted() == task.getCompleted() &&
+        Objects.equals(getDescription(), task.getDescription()) &&
+        Objects.equals(getDate(), task.getDate()) &&
+        getPriority() == task.getPriority();
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(description, date, completed, priority);
+    return Objects.hash(getDescription(), getDate(), getCompleted(), getPriority());
   }
 
+  /**
+   * Compares tasks by priority, then due date, then ID, as BY_PRIORITY_AND_DUE_DATE does.
+   * @param otherTask The task to compare with.
+   * @return A negative number if this task comes first, zero if both are the same task.
+   */
   @Override
   public int compareTo(Task otherTask) {
-    return this.priority.compareTo(otherTask.getPriority());
+    return BY_PRIORITY_AND_DUE_DATE.compare(this, otherTask);
   }
 
   @Override
   public String toString() {
     // String representation of the task
-    return "Task ID: " + id + "\n" +
-        "Description: " + description + "\n" +
-        "Date: " + date + "\n" +
-        "Completed: " + completed + "\n" +
-        "Priority: " + priority;
+    return "Task ID: " + getId() + "\n" +
+        "Description: " + getDescription() + "\n" +
+        "Date: " + getDate() + "\n" +
+        "Completed: " + getCompleted() + "\n" +
+        "Priority: " + getPriority();
   }
 }
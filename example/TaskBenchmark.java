@@ -0,0 +1,311 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks the hot paths of the model, the controllers and the file persistence on lists of
+ * different sizes, for every task list implementation.
+ * For each operation it reports the throughput, the latency percentiles and the number of
+ * bytes allocated per operation, so storage changes can be compared against the linked list.
+ *
+ * <p>Usage: {@code java -Xmx8g org.example.TaskBenchmark [sizes] [lists]}, for example
+ * {@code java org.example.TaskBenchmark 1000,100000,10000000 IndexedTaskList,ColumnarTaskList}.
+ * The linked TaskList is skipped above 100,000 tasks unless it is named explicitly, since its
+ * ID lookups walk the whole list.
+ */
+public class TaskBenchmark {
+  private static final long WARMUP_NANOS = 300_000_000L; // Warm-up time per operation
+  private static final long MEASURE_NANOS = 1_000_000_000L; // Measurement time per operation
+  private static final int MAX_SAMPLES = 1_000_000; // Latency samples kept per operation
+  private static final int LINKED_LIST_LIMIT = 100_000;
+  private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+  private static final Map<String, Supplier<TaskListADT>> LISTS = new LinkedHashMap<>();
+
+  static {
+    LISTS.put("TaskList", TaskList::new);
+    LISTS.put("IndexedTaskList", IndexedTaskList::new);
+    LISTS.put("ColumnarTaskList", ColumnarTaskList::new);
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args Comma separated list sizes and task list names (both optional).
+   * @throws IOException If the temporary task files can't be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int[] sizes = args.length > 0
+        ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+        : new int[] {1_000, 10_000, 100_000, 1_000_000};
+    List<String> lists = args.length > 1 ? Arrays.asList(args[1].split(",")) : new ArrayList<>(LISTS.keySet());
+    boolean linkedNamed = args.length > 1 && lists.contains("TaskList");
+
+    printHeader();
+    for (int size : sizes) {
+      for (String name : lists) {
+        if (name.equals("TaskList") && size > LINKED_LIST_LIMIT && !linkedNamed) {
+          continue;
+        }
+        run(name, LISTS.get(name), size);
+      }
+    }
+    runQueryScaling(Arrays.stream(sizes).max().getAsInt());
+  }
+
+  private static void run(String listName, Supplier<TaskListADT> factory, int size) throws IOException {
+    String prefix = listName + " n=" + size;
+
+    // Building the list measures addTask
+    TaskListADT taskList = factory.get();
+    TaskModel model = new TaskModel(START, taskList);
+    print(measureOnce(prefix, "addTask", size, () -> fill(model, size)));
+    List<Task> batch = new ArrayList<>(model.getAllTasks().size());
+    for (Task task : model.getAllTasks()) {
+      batch.add(new Task(task.getId(), task.getDescription(), task.getDate(), task.getCompleted(), task.getPriority()));
+    }
+    print(measureOnce(prefix, "addAll", size, () -> new TaskModel(START, factory.get()).addAll(batch)));
+    TaskController controller = new TaskController(model, new TaskView());
+    int[] ids = model.getAllTasks().stream().mapToInt(Task::getId).toArray();
+    SplittableRandom random = new SplittableRandom(42);
+
+    print(measure(prefix, "getTaskById", i -> model.getTaskById(ids[random.nextInt(ids.length)])));
+    print(measure(prefix, "markTaskCompleted", i -> model.markTaskCompleted(ids[random.nextInt(ids.length)])));
+    print(measure(prefix, "removeTask", i -> {
+      // Remove a random task and put it back, so the list keeps its size
+      int slot = random.nextInt(ids.length);
+      // Copy the task first, since columnar lists hand out views of the stored values
+      Task task = model.getTaskById(ids[slot]);
+      Task copy = new Task(task.getId(), task.getDescription(), task.getDate(), task.getCompleted(), task.getPriority());
+      model.removeTask(ids[slot]);
+      model.addTask(copy);
+    }));
+    print(measure(prefix, "list.getAllTasks", i -> taskList.getAllTasks().size()));
+    print(measure(prefix, "model.getAllTasks", i -> model.getAllTasks().size()));
+    print(measure(prefix, "filter.completion", i -> controller.getTasksByCompletion(i % 2 == 0)));
+    print(measure(prefix, "filter.priority", i -> controller.getTasksByPriority(Priority.values()[i % 3])));
+    print(measure(prefix, "filter.date", i -> controller.getTasksByDate(START.plusDays(300 + i % 60))));
+
+    Path file = Files.createTempFile("task-benchmark", ".csv");
+    Path binaryFile = Files.createTempFile("task-benchmark", ".tkb");
+    try {
+      print(measure(prefix, "saveTasksToCSV", i -> {
+        try {
+          model.saveTasksToCSV(file.toString());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+      print(measure(prefix, "loadTasksFromCSV", i -> {
+        try {
+          new TaskModel(START, factory.get()).loadTasksFromCSV(file.toString());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+      print(measure(prefix, "saveTasksToBinary", i -> {
+        try {
+          model.saveTasksToBinary(binaryFile.toString());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+      print(measure(prefix, "loadTasksFromBinary", i -> {
+        try {
+          new TaskModel(START, factory.get()).loadTasksFromBinary(binaryFile.toString());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+      printSize(prefix, "csv.fileSize", Files.size(file), size);
+      printSize(prefix, "binary.fileSize", Files.size(binaryFile), size);
+    } finally {
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(binaryFile);
+    }
+  }
+
+  /**
+   * Measures a query that has to check every task, such as a description search, on one
+   * thread and split across a pool. The first rows compare the two on growing lists, to
+   * show from which size splitting pays off, and the last ones run the largest list on pools
+   * of more and more threads. The allocation column only counts the calling thread, so it
+   * leaves out what the pool threads allocate.
+   *
+   * @param maxSize The size of the largest list.
+   */
+  static void runQueryScaling(int maxSize) {
+    TaskQuery query = TaskQuery.builder().descriptionContains("task 7").build();
+    int processors = Runtime.getRuntime().availableProcessors();
+    ForkJoinPool pool = new ForkJoinPool(processors);
+    try {
+      // Sizes in steps of 1, 2 and 5 times a power of ten
+      for (int step = 0; stepSize(step) <= maxSize; step++) {
+        int size = stepSize(step);
+        TaskModel model = new TaskModel(START, new IndexedTaskList());
+        fill(model, size);
+        String prefix = "query n=" + size;
+        model.setQueryParallelism(pool, Integer.MAX_VALUE);
+        print(measure(prefix, "scan.sequential", i -> model.query(query)));
+        model.setQueryParallelism(pool, 1);
+        print(measure(prefix, "scan.parallel=" + processors, i -> model.query(query)));
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    TaskModel model = new TaskModel(START, new IndexedTaskList());
+    fill(model, maxSize);
+    // Powers of two up to the number of processors, which is also measured if it is not one
+    for (int threads = 1; threads <= processors; threads = threads < processors && threads * 2 > processors
+        ? processors : threads * 2) {
+      ForkJoinPool threadPool = new ForkJoinPool(threads);
+      try {
+        model.setQueryParallelism(threadPool, 1);
+        print(measure("query n=" + maxSize, "scan.threads=" + threads, i -> model.query(query)));
+      } finally {
+        threadPool.shutdown();
+      }
+    }
+  }
+
+  // The size of the list at the given step of the crossover measurements: 1,000, 2,000, 5,000, 10,000, ...
+  private static int stepSize(int step) {
+    int[] multipliers = {1, 2, 5};
+    long size = 1_000L * multipliers[step % 3];
+    for (int i = 0; i < step / 3; i++) {
+      size *= 10;
+    }
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  // Adds the specified number of tasks with a spread of dates, priorities and statuses
+  static void fill(TaskModel model, int size) {
+    Priority[] priorities = Priority.values();
+    for (int i = 0; i < size; i++) {
+      model.addTask(new Task("Benchmark task " + i, START.plusDays(i % 365), i % 4 == 0,
+          priorities[i % priorities.length]));
+    }
+  }
+
+  /**
+   * Runs an operation repeatedly, first to warm up and then to measure it.
+   *
+   * @param list The list and size being measured.
+   * @param operation The name of the operation.
+   * @param op The operation, called with the iteration number.
+   * @return The measurements.
+   */
+  static Result measure(String list, String operation, IntConsumer op) {
+    long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+    for (int i = 0; System.nanoTime() < warmupEnd; i++) {
+      op.accept(i);
+    }
+    long[] samples = new long[1024];
+    int count = 0;
+    long allocatedBefore = allocatedBytes();
+    long start = System.nanoTime();
+    long end = start + MEASURE_NANOS;
+    long now = start;
+    while (now < end && count < MAX_SAMPLES) {
+      op.accept(count);
+      long after = System.nanoTime();
+      if (count == samples.length) {
+        samples = Arrays.copyOf(samples, count * 2);
+      }
+      samples[count++] = after - now;
+      now = after;
+    }
+    long allocated = allocatedBytes() - allocatedBefore;
+    return new Result(list, operation, Arrays.copyOf(samples, count), now - start, allocated);
+  }
+
+  // Measures an operation that is only run once, such as building a whole list
+  private static Result measureOnce(String list, String operation, int opsPerRun, Runnable run) {
+    long allocatedBefore = allocatedBytes();
+    long start = System.nanoTime();
+    run.run();
+    long elapsed = System.nanoTime() - start;
+    long allocated = allocatedBytes() - allocatedBefore;
+    long[] samples = new long[opsPerRun];
+    Arrays.fill(samples, elapsed / Math.max(1, opsPerRun));
+    return new Result(list, operation, samples, elapsed, allocated);
+  }
+
+  // Bytes allocated by the current thread so far, or 0 if the JVM doesn't track them
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  static void printHeader() {
+    System.out.printf("%-28s %-20s %14s %11s %11s %11s %11s %14s%n",
+        "list", "operation", "ops/s", "p50 us", "p90 us", "p99 us", "max us", "alloc B/op");
+  }
+
+  static void print(Result result) {
+    System.out.printf("%-28s %-20s %,14.2f %11.2f %11.2f %11.2f %11.2f %,14.0f%n",
+        result.list, result.operation, result.throughput(), result.percentile(50) / 1e3,
+        result.percentile(90) / 1e3, result.percentile(99) / 1e3, result.percentile(100) / 1e3,
+        result.allocatedPerOp());
+  }
+
+  // Prints the size of a saved file in place of the timings
+  static void printSize(String list, String file, long bytes, int tasks) {
+    System.out.printf("%-28s %-20s %,14d bytes, %.1f bytes per task%n", list, file, bytes,
+        (double) bytes / Math.max(1, tasks));
+  }
+
+  /**
+   * The measurements of one operation.
+   */
+  static class Result {
+    private final String list;
+    private final String operation;
+    private final long[] sortedSamples; // Nanoseconds per operation
+    private final long elapsedNanos;
+    private final long allocatedBytes;
+
+    Result(String list, String operation, long[] samples, long elapsedNanos, long allocatedBytes) {
+      this.list = list;
+      this.operation = operation;
+      this.sortedSamples = samples;
+      Arrays.sort(sortedSamples);
+      this.elapsedNanos = elapsedNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    double throughput() {
+      return sortedSamples.length * 1e9 / Math.max(1, elapsedNanos);
+    }
+
+    long percentile(double percent) {
+      if (sortedSamples.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percent / 100 * sortedSamples.length) - 1;
+      return sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))];
+    }
+
+    double allocatedPerOp() {
+      return (double) allocatedBytes / Math.max(1, sortedSamples.length);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads tasks written by TaskBinaryWriter, one task at a time.
+ * The stream is read through a buffer of its own, so it needn't be buffered by the caller.
+ */
+public class TaskBinaryReader implements Closeable {
+  private static final Priority[] PRIORITIES = Priority.values();
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[64 << 10];
+  private int position;
+  private int limit;
+  private final List<String> dictionary = new ArrayList<>();
+  private int previousId;
+  private long previousEpochDay;
+  private long count;
+  private boolean ended;
+
+  /**
+   * Constructs a reader and reads the header from the stream.
+   * @param in The stream to read from.
+   * @throws IOException If the header can't be read or isn't a binary task header.
+   */
+  public TaskBinaryReader(InputStream in) throws IOException {
+    this.in = in;
+    int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    if (magic != TaskBinaryWriter.MAGIC) {
+      throw new IOException("Not a binary task file");
+    }
+    int version = readByte();
+    if (version != TaskBinaryWriter.FORMAT_VERSION) {
+      throw new IOException("Unsupported binary task file version " + version);
+    }
+    readByte(); // Header flags; the reader handles dictionary references either way
+  }
+
+  /**
+   * Reads all tasks from a binary task file.
+   * @param file The file to read.
+   * @return The tasks, in file order.
+   * @throws IOException If the file can't be read, is truncated or is corrupt.
+   */
+  public static List<Task> read(Path file) throws IOException {
+    List<Task> tasks = new ArrayList<>();
+    try (TaskBinaryReader reader = new TaskBinaryReader(Files.newInputStream(file))) {
+      Task task;
+      while ((task = reader.next()) != null) {
+        tasks.add(task);
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * Reads the next task.
+   * @return The task, or null at the end of the stream.
+   * @throws IOException If the stream can't be read, is truncated or is corrupt.
+   */
+  public Task next() throws IOException {
+    if (ended) {
+      return null;
+    }
+    int flags = readByte();
+    if (flags == TaskBinaryWriter.END) {
+      if (readVarLong() != count) {
+        throw new IOException("Task count in the trailer doesn't match the tasks read");
+      }
+      ended = true;
+      return null;
+    }
+    if ((flags & TaskBinaryWriter.END) != 0 || (flags & TaskBinaryWriter.PRIORITY_MASK) > PRIORITIES.length) {
+      throw new IOException("Corrupt task record");
+    }
+    long id = previousId + unzigzag(readVarLong());
+    if (id < 0 || id > Integer.MAX_VALUE) {
+      throw new IOException("Corrupt task ID");
+    }
+    previousId = (int) id;
+    LocalDate date = null;
+    if ((flags & TaskBinaryWriter.HAS_DATE) != 0) {
+      previousEpochDay += unzigzag(readVarLong());
+      try {
+        date = LocalDate.ofEpochDay(previousEpochDay);
+      } catch (DateTimeException e) {
+        throw new IOException("Corrupt due date", e);
+      }
+    }
+    String description = null;
+    int descriptionKind = flags >> TaskBinaryWriter.DESCRIPTION_SHIFT;
+    if (descriptionKind == TaskBinaryWriter.DESCRIPTION_REFERENCE) {
+      long index = readVarLong();
+      if (index >= dictionary.size()) {
+        throw new IOException("Reference to an undefined description");
+      }
+      description = dictionary.get((int) index);
+    } else if (descriptionKind != TaskBinaryWriter.DESCRIPTION_NONE) {
+      description = readString();
+      if (descriptionKind == TaskBinaryWriter.DESCRIPTION_DEFINE) {
+        dictionary.add(description);
+      }
+    }
+    int priority = flags & TaskBinaryWriter.PRIORITY_MASK;
+    count++;
+    return new Task(previousId, description, date, (flags & TaskBinaryWriter.COMPLETED) != 0,
+        priority == 0 ? null : PRIORITIES[priority - 1]);
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private int readByte() throws IOException {
+    if (position == limit) {
+      fill();
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  private long readVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Corrupt varint");
+  }
+
+  private String readString() throws IOException {
+    long length = readVarLong();
+    if (length < 0 || length > Integer.MAX_VALUE - 8) {
+      throw new IOException("Corrupt description length");
+    }
+    int size = (int) length;
+    if (limit - position >= size) {
+      String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+      position += size;
+      return value;
+    }
+    byte[] bytes = new byte[size];
+    int copied = 0;
+    while (copied < size) {
+      if (position == limit) {
+        fill();
+      }
+      int chunk = Math.min(size - copied, limit - position);
+      System.arraycopy(buffer, position, bytes, copied, chunk);
+      position += chunk;
+      copied += chunk;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void fill() throws IOException {
+    int read = in.read(buffer, 0, buffer.length);
+    if (read <= 0) {
+      throw new EOFException("Binary task file is truncated");
+    }
+    position = 0;
+    limit = read;
+  }
+}
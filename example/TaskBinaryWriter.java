@@ -0,0 +1,219 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes tasks in the compact binary task format, one task at a time.
+ *
+ * <p>The stream starts with a header: the magic number {@code TKBF} (int), the format version
+ * (byte) and header flags (byte). Each task follows as a record:
+ * <ul>
+ *   <li>a flags byte holding the priority (bits 0-2, 0 for none or the ordinal plus one), the
+ *   completion status (bit 3), whether there is a due date (bit 4) and how the description is
+ *   stored (bits 5-6: none, inline, inline and added to the dictionary, or a reference);</li>
+ *   <li>the difference to the previous task ID as a zigzag varint;</li>
+ *   <li>the difference to the previous due date in epoch days as a zigzag varint, if any;</li>
+ *   <li>the description as a varint byte length followed by its UTF-8 bytes, or as a varint
+ *   index into the dictionary of descriptions defined earlier in the stream.</li>
+ * </ul>
+ * The stream ends with the END byte and the number of tasks as a varint, so a truncated file
+ * is detected by the reader. Tasks added in ID order take about 4 bytes plus the description.
+ *
+ * <p>The dictionary is optional and is built while writing: the first time a short
+ * description is written it is defined, and later tasks with the same description refer to
+ * it by index. It pays off for lists with many repeated descriptions.
+ */
+public class TaskBinaryWriter implements Closeable {
+  static final int MAGIC = 0x544B4246; // "TKBF"
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_DICTIONARY = 0x01; // Header flag: descriptions may be references
+
+  // Record flags
+  static final int PRIORITY_MASK = 0x07;
+  static final int COMPLETED = 0x08;
+  static final int HAS_DATE = 0x10;
+  static final int DESCRIPTION_SHIFT = 5;
+  static final int DESCRIPTION_NONE = 0;
+  static final int DESCRIPTION_INLINE = 1;
+  static final int DESCRIPTION_DEFINE = 2; // Inline, and added to the dictionary
+  static final int DESCRIPTION_REFERENCE = 3;
+  static final int END = 0x80; // Never set in the flags of a record
+
+  static final int MAX_DICTIONARY_SIZE = 1 << 16; // Descriptions the dictionary holds at most
+  static final int MAX_DICTIONARY_LENGTH = 64; // Longer descriptions are always written inline
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[64 << 10];
+  private int position;
+  private final Map<String, Integer> dictionary; // Null if the dictionary is not used
+  private int previousId;
+  private long previousEpochDay;
+  private long count;
+  private boolean finished;
+
+  /**
+   * Constructs a writer and writes the header to the stream.
+   * @param out The stream to write to.
+   * @param useDictionary Whether repeated descriptions are written as references.
+   * @throws IOException If the header can't be written.
+   */
+  public TaskBinaryWriter(OutputStream out, boolean useDictionary) throws IOException {
+    this.out = out;
+    this.dictionary = useDictionary ? new HashMap<>() : null;
+    putInt(MAGIC);
+    buffer[position++] = FORMAT_VERSION;
+    buffer[position++] = (byte) (useDictionary ? HEADER_DICTIONARY : 0);
+  }
+
+  /**
+   * Writes tasks to a binary task file, replacing it atomically if it exists.
+   * @param target The file to write.
+   * @param tasks The tasks to write, in order.
+   * @param useDictionary Whether repeated descriptions are written as references.
+   * @param syncPolicy How hard the file is pushed to the disk before it replaces the old one.
+   * @throws IOException If the file can't be written. The target is left untouched.
+   */
+  public static void write(Path target, Iterable<Task> tasks, boolean useDictionary, SyncPolicy syncPolicy)
+      throws IOException {
+    AtomicFiles.replace(target, syncPolicy, channel -> {
+      // The channel stays open for the sync, so the writer is finished rather than closed
+      TaskBinaryWriter writer = new TaskBinaryWriter(Channels.newOutputStream(channel), useDictionary);
+      for (Task task : tasks) {
+        writer.write(task);
+      }
+      writer.finish();
+    });
+  }
+
+  /**
+   * Writes one task.
+   * @param task The task to write.
+   * @throws IOException If the task can't be written.
+   */
+  public void write(Task task) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("Writer is finished");
+    }
+    String description = task.getDescription();
+    LocalDate date = task.getDate();
+    Priority priority = task.getPriority();
+
+    int descriptionKind = DESCRIPTION_NONE;
+    int reference = 0;
+    if (description != null) {
+      descriptionKind = DESCRIPTION_INLINE;
+      if (dictionary != null && description.length() <= MAX_DICTIONARY_LENGTH) {
+        Integer index = dictionary.get(description);
+        if (index != null) {
+          descriptionKind = DESCRIPTION_REFERENCE;
+          reference = index;
+        } else if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+          descriptionKind = DESCRIPTION_DEFINE;
+          dictionary.put(description, dictionary.size());
+        }
+      }
+    }
+    int flags = (priority == null ? 0 : priority.ordinal() + 1)
+        | (task.getCompleted() ? COMPLETED : 0)
+        | (date == null ? 0 : HAS_DATE)
+        | descriptionKind << DESCRIPTION_SHIFT;
+
+    ensure(32);
+    buffer[position++] = (byte) flags;
+    putVarLong(zigzag((long) task.getId() - previousId));
+    previousId = task.getId();
+    if (date != null) {
+      putVarLong(zigzag(date.toEpochDay() - previousEpochDay));
+      previousEpochDay = date.toEpochDay();
+    }
+    if (descriptionKind == DESCRIPTION_REFERENCE) {
+      putVarLong(reference);
+    } else if (descriptionKind != DESCRIPTION_NONE) {
+      byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+      putVarLong(bytes.length);
+      putBytes(bytes);
+    }
+    count++;
+  }
+
+  /**
+   * Writes the end of the stream and flushes it, leaving the stream open.
+   * @throws IOException If the end can't be written.
+   */
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+    ensure(16);
+    buffer[position++] = (byte) END;
+    putVarLong(count);
+    flush();
+    out.flush();
+    finished = true;
+  }
+
+  /**
+   * Writes the end of the stream and closes it.
+   * @throws IOException If the end can't be written.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    } finally {
+      out.close();
+    }
+  }
+
+  // Maps signed values to unsigned ones so that small negative values stay short
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private void putInt(int value) {
+    buffer[position++] = (byte) (value >>> 24);
+    buffer[position++] = (byte) (value >>> 16);
+    buffer[position++] = (byte) (value >>> 8);
+    buffer[position++] = (byte) value;
+  }
+
+  // Writes 7 bits per byte, lowest first, with the top bit set on all but the last byte
+  private void putVarLong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+  }
+
+  private void putBytes(byte[] bytes) throws IOException {
+    if (bytes.length > buffer.length - position) {
+      flush();
+      if (bytes.length > buffer.length) {
+        out.write(bytes);
+        return;
+      }
+    }
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private void ensure(int bytes) throws IOException {
+    if (buffer.length - position < bytes) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    out.write(buffer, 0, position);
+    position = 0;
+  }
+}
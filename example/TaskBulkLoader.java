@@ -0,0 +1,120 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Collects tasks, for example from an importer that produces them one at a time, and adds
+ * them to a TaskModel in one step when load is called. Until then the model is untouched, so
+ * readers see either none or all of the tasks.
+ *
+ * <p>Usage:
+ * <pre>{@code
+ * model.bulkLoader()
+ *     .expectedSize(1_000_000)
+ *     .renumberDuplicates(true)
+ *     .buildIndexes(true)
+ *     .addAll(importedTasks)
+ *     .load();
+ * }</pre>
+ *
+ * <p>A loader is meant to be used by one thread and once.
+ */
+public class TaskBulkLoader {
+  private final TaskModel model;
+  private ArrayList<Task> tasks = new ArrayList<>();
+  private boolean renumberDuplicates;
+  private boolean buildIndexes;
+
+  /**
+   * Constructs a loader for a model; TaskModel.bulkLoader is the usual way to get one.
+   *
+   * @param model The model to load the tasks into.
+   */
+  TaskBulkLoader(TaskModel model) {
+    this.model = model;
+  }
+
+  /**
+   * Makes room for the specified number of tasks, so that neither the loader nor the task
+   * list grows while the tasks are added.
+   *
+   * @param size The number of tasks expected.
+   * @return This loader.
+   */
+  public TaskBulkLoader expectedSize(int size) {
+    tasks.ensureCapacity(size);
+    return this;
+  }
+
+  /**
+   * Sets whether a task whose ID is already taken gets a new ID, as tasks loaded from a file
+   * do, instead of replacing the task with that ID, as addTask does. Off by default.
+   *
+   * @param renumber True to give tasks with a taken ID a new ID.
+   * @return This loader.
+   */
+  public TaskBulkLoader renumberDuplicates(boolean renumber) {
+    this.renumberDuplicates = renumber;
+    return this;
+  }
+
+  /**
+   * Sets whether the secondary indexes are built as part of the load, so that the first
+   * filter query afterwards doesn't have to. Off by default.
+   *
+   * @param build True to build the indexes during the load.
+   * @return This loader.
+   */
+  public TaskBulkLoader buildIndexes(boolean build) {
+    this.buildIndexes = build;
+    return this;
+  }
+
+  /**
+   * Adds a task to the batch.
+   *
+   * @param task The task to add.
+   * @return This loader.
+   */
+  public TaskBulkLoader add(Task task) {
+    tasks.add(task);
+    return this;
+  }
+
+  /**
+   * Adds tasks to the batch.
+   *
+   * @param tasks The tasks to add.
+   * @return This loader.
+   */
+  public TaskBulkLoader addAll(Collection<Task> tasks) {
+    this.tasks.addAll(tasks);
+    return this;
+  }
+
+  /**
+   * Adds the tasks of a stream to the batch.
+   *
+   * @param tasks The tasks to add.
+   * @return This loader.
+   */
+  public TaskBulkLoader addAll(Stream<Task> tasks) {
+    tasks.forEachOrdered(this.tasks::add);
+    return this;
+  }
+
+  /**
+   * Adds the batch to the model in one step, as a single new version of the model.
+   *
+   * @return The number of tasks added.
+   */
+  public int load() {
+    List<Task> batch = tasks;
+    tasks = new ArrayList<>();
+    model.addBulk(batch, renumberDuplicates, buildIndexes);
+    return batch.size();
+  }
+}
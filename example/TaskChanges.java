@@ -0,0 +1,94 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The IDs of the tasks of a model that changed since the changes were last taken, for saves
+ * that only write what changed.
+ * Changes arrive both as model events, since the change set is a listener of its model, and
+ * from the setters of the tasks the model handed out. Once more tasks changed than are worth
+ * tracking one by one, for example after a bulk load, every task counts as changed.
+ */
+final class TaskChanges implements TaskModelListener {
+  static final int MAX_TRACKED = 1 << 16; // Changed IDs kept before every task counts as changed
+
+  private Set<Integer> ids = new HashSet<>();
+  private boolean all; // Whether every task counts as changed
+
+  /**
+   * Records a change to a task.
+   *
+   * @param taskId The ID of the changed, added or removed task.
+   */
+  synchronized void changed(int taskId) {
+    if (all) {
+      return;
+    }
+    ids.add(taskId);
+    if (ids.size() > MAX_TRACKED) {
+      changedAll();
+    }
+  }
+
+  /**
+   * Records that every task counts as changed.
+   */
+  synchronized void changedAll() {
+    all = true;
+    ids = new HashSet<>();
+  }
+
+  /**
+   * Takes the changes recorded so far and starts recording afresh.
+   *
+   * @return The IDs of the changed tasks, or null if every task counts as changed.
+   */
+  synchronized Set<Integer> take() {
+    Set<Integer> taken = all ? null : ids;
+    ids = new HashSet<>();
+    all = false;
+    return taken;
+  }
+
+  /**
+   * Puts back changes taken earlier that could not be saved.
+   *
+   * @param taken The changes returned by take.
+   */
+  synchronized void restore(Set<Integer> taken) {
+    if (taken == null) {
+      changedAll();
+      return;
+    }
+    for (int taskId : taken) {
+      changed(taskId);
+    }
+  }
+
+  @Override
+  public void taskAdded(Task task) {
+    changed(task.getId());
+  }
+
+  @Override
+  public void taskRemoved(int taskId) {
+    changed(taskId);
+  }
+
+  @Override
+  public void taskCompleted(int taskId) {
+    changed(taskId);
+  }
+
+  @Override
+  public void taskDateChanged(int taskId, LocalDate newDate) {
+    changed(taskId);
+  }
+
+  @Override
+  public void taskUpdated(Task task) {
+    changed(task.getId());
+  }
+}
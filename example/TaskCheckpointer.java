@@ -0,0 +1,259 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Persists a TaskModel in a directory as a journal of changes plus periodic checkpoints, so
+ * that startup time and disk use stay bounded however long the list has been edited.
+ *
+ * <p>The journal is split into numbered segments. A checkpoint switches the journal to a new
+ * segment N and takes a snapshot of the model at the same point, under the model's write
+ * lock. The snapshot is then written to {@code checkpoint-N.tkb} in the binary task format on
+ * a background thread while the model keeps changing. Once it is on disk, segments older than
+ * the oldest kept checkpoint are deleted.
+ *
+ * <p>Tasks can change while the checkpoint is written, so it may hold newer values than the
+ * snapshot point for some tasks. That is safe because every journal entry sets a value rather
+ * than changing it relative to the old one: replaying segment N onwards on top of checkpoint N
+ * ends in the same state whether or not the checkpoint already holds some of those changes.
+ *
+ * <p>Recovery loads the newest checkpoint that reads back completely, falling back to an
+ * older one if the newest is damaged, and replays only the segments after it. Checkpoints are
+ * written while the model changes, so the model should be a ConcurrentTaskModel.
+ */
+public class TaskCheckpointer implements Closeable {
+  static final int CHECKPOINTS_KEPT = 2;
+
+  private static final Pattern CHECKPOINT_NAME = Pattern.compile("checkpoint-(\\d+)\\.tkb");
+  private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+  private final Path directory;
+  private final TaskModel model;
+  private final TaskJournal journal;
+  private final ScheduledExecutorService scheduler;
+  private long segment; // Number of the segment the journal writes to
+  private long checkpointedVersion; // Model version of the last checkpoint
+  private CompletableFuture<Path> running; // Checkpoint being written, if any
+
+  private TaskCheckpointer(Path directory, TaskModel model, TaskJournal journal, long segment) {
+    this.directory = directory;
+    this.model = model;
+    this.journal = journal;
+    this.segment = segment;
+    this.checkpointedVersion = model.getVersion();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "task-checkpointer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Recovers the tasks persisted in a directory into an empty model and starts recording
+   * the changes to the model there. The directory is created if it doesn't exist.
+   *
+   * @param directory The directory holding the checkpoints and journal segments.
+   * @param model The model to recover into and persist, which must be empty.
+   * @return The checkpointer, which must be closed when the model is no longer changed.
+   * @throws IOException If the directory can't be read or the journal can't be opened.
+   */
+  public static TaskCheckpointer open(Path directory, TaskModel model) throws IOException {
+    Files.createDirectories(directory);
+    List<Long> checkpoints = numbered(directory, CHECKPOINT_NAME);
+    List<Long> segments = numbered(directory, SEGMENT_NAME);
+
+    // Load the newest checkpoint that is complete
+    long replayFrom = 0;
+    for (int i = checkpoints.size() - 1; i >= 0; i--) {
+      try {
+        List<Task> tasks = TaskBinaryReader.read(checkpointFile(directory, checkpoints.get(i)));
+        model.addLoadedTasks(tasks);
+        replayFrom = checkpoints.get(i);
+        break;
+      } catch (IOException e) {
+        System.out.println("Skipping damaged checkpoint " + checkpoints.get(i) + ": " + e.getMessage());
+      }
+    }
+    // Replay the changes made after it, before the journal listens to the model again
+    for (long number : segments) {
+      if (number >= replayFrom) {
+        TaskJournal.replay(segmentFile(directory, number), model);
+      }
+    }
+
+    long next = Math.max(replayFrom, segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1);
+    TaskJournal journal = TaskJournal.open(segmentFile(directory, next));
+    model.addListener(journal);
+    return new TaskCheckpointer(directory, model, journal, next);
+  }
+
+  /**
+   * Takes a checkpoint at the specified interval while the model keeps changing. Intervals
+   * in which the model didn't change are skipped.
+   *
+   * @param interval The time between checkpoints.
+   */
+  public void start(Duration interval) {
+    long millis = interval.toMillis();
+    scheduler.scheduleWithFixedDelay(() -> {
+      if (model.getVersion() != checkpointedVersion()) {
+        checkpoint().exceptionally(e -> {
+          System.out.println("Checkpoint failed: " + e.getMessage());
+          return null;
+        });
+      }
+    }, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Takes a checkpoint now. Changes to the model are only held up while the journal switches
+   * to a new segment; the checkpoint itself is written on a background thread.
+   *
+   * @return A future holding the checkpoint file once it is durable and old files are deleted.
+   */
+  public synchronized CompletableFuture<Path> checkpoint() {
+    if (running != null && !running.isDone()) {
+      return running; // One checkpoint at a time; the running one covers the request
+    }
+    long next = segment + 1;
+    IOException[] rotateFailure = new IOException[1];
+    TaskSnapshot snapshot = model.snapshotWith(() -> {
+      try {
+        journal.rotate(segmentFile(directory, next));
+      } catch (IOException e) {
+        rotateFailure[0] = e;
+      }
+    });
+    if (rotateFailure[0] != null) {
+      return CompletableFuture.failedFuture(rotateFailure[0]);
+    }
+    segment = next;
+    running = CompletableFuture.supplyAsync(() -> {
+      Path file = checkpointFile(directory, next);
+      try {
+        TaskBinaryWriter.write(file, () -> detachedCopies(snapshot), true, SyncPolicy.FULL);
+        deleteOlderThanKept();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      synchronized (this) {
+        checkpointedVersion = Math.max(checkpointedVersion, snapshot.getVersion());
+      }
+      return file;
+    }, scheduler);
+    return running;
+  }
+
+  /**
+   * Stops taking checkpoints, waits for a running one and closes the journal.
+   *
+   * @throws IOException If the last journal entries can't be written.
+   */
+  @Override
+  public void close() throws IOException {
+    model.removeListener(journal);
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    journal.close();
+  }
+
+  private synchronized long checkpointedVersion() {
+    return checkpointedVersion;
+  }
+
+  // Copies the tasks of the snapshot as they are now, skipping tasks removed since
+  private Iterator<Task> detachedCopies(TaskSnapshot snapshot) {
+    Iterator<Task> tasks = snapshot.iterator();
+    return new Iterator<Task>() {
+      private Task next = advance();
+
+      private Task advance() {
+        while (tasks.hasNext()) {
+          Task copy = model.detachedCopy(tasks.next());
+          if (copy != null) {
+            return copy;
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public Task next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        Task current = next;
+        next = advance();
+        return current;
+      }
+    };
+  }
+
+  // Keeps the newest checkpoints and the segments needed to replay from the oldest kept one
+  private void deleteOlderThanKept() throws IOException {
+    List<Long> checkpoints = numbered(directory, CHECKPOINT_NAME);
+    if (checkpoints.size() < CHECKPOINTS_KEPT) {
+      return;
+    }
+    long oldestKept = checkpoints.get(checkpoints.size() - CHECKPOINTS_KEPT);
+    for (long number : checkpoints) {
+      if (number < oldestKept) {
+        Files.deleteIfExists(checkpointFile(directory, number));
+      }
+    }
+    for (long number : numbered(directory, SEGMENT_NAME)) {
+      if (number < oldestKept) {
+        Files.deleteIfExists(segmentFile(directory, number));
+      }
+    }
+    AtomicFiles.syncDirectory(directory);
+  }
+
+  // Lists the numbers of the files in the directory whose names match, in ascending order
+  private static List<Long> numbered(Path directory, Pattern name) throws IOException {
+    List<Long> numbers = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> {
+        Matcher matcher = name.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          numbers.add(Long.parseLong(matcher.group(1)));
+        }
+      });
+    }
+    numbers.sort(null);
+    return numbers;
+  }
+
+  static Path checkpointFile(Path directory, long number) {
+    return directory.resolve(String.format("checkpoint-%016d.tkb", number));
+  }
+
+  static Path segmentFile(Path directory, long number) {
+    return directory.resolve(String.format("journal-%016d.log", number));
+  }
+}
@@ -3,7 +3,7 @@ package org.example;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JOptionPane;
 
 /**
@@ -12,6 +12,7 @@ import javax.swing.JOptionPane;
 public class TaskController {
   private final TaskModel model; // Define the model variable
   private final TaskView taskView; // Define the taskView variable
+  private final TaskQueryCache queryCache; // Results of the queries run again and again
 
   /**
    * Constructs a TaskController with the specified TaskModel and TaskView.
@@ -21,6 +22,7 @@ public class TaskController {
   public TaskController(TaskModel taskModel, TaskView taskView) {
     this.model = taskModel; // Initialize the model variable with the provided taskModel
     this.taskView = taskView; // Initialize the taskView variable with the provided taskView
+    this.queryCache = new TaskQueryCache(taskModel);
   }
 
   /**
@@ -58,6 +60,23 @@ public class TaskController {
     return model.getAllTasks();
   }
 
+  /**
+   * Gets a snapshot of all tasks at the current version of the model.
+   * @return The snapshot of the current tasks.
+   */
+  public TaskSnapshot getTaskSnapshot() {
+    return model.snapshot();
+  }
+
+  /**
+   * Checks whether a snapshot still reflects the current version of the model.
+   * @param snapshot The snapshot to check.
+   * @return True if the model has not changed since the snapshot was taken.
+   */
+  public boolean isCurrent(TaskSnapshot snapshot) {
+    return model.isCurrent(snapshot);
+  }
+
   /**
    * Edits the task with the specified ID, updating its description, due date, and priority.
    * @param taskId The ID of the task to be edited.
@@ -66,14 +85,8 @@ public class TaskController {
    * @param priority The new priority of the task.
    */
   public void editTask(int taskId, String description, LocalDate dueDate, Priority priority) {
-    Task taskToUpdate = model.getTaskById(taskId);
-    if (taskToUpdate != null) {
-      taskToUpdate.setDescription(description);
-      taskToUpdate.setDate(dueDate);
-      taskToUpdate.setPriority(priority);
-      // You can add more attributes as needed
-      // Update the task in the model
-      model.updateTask(taskToUpdate);
+    // The model changes every value at once, so readers on other threads never see half an edit
+    if (model.editTask(taskId, description, dueDate, priority)) {
       JOptionPane.showMessageDialog(null, "Task updated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
     } else {
       // Task with the given ID not found
@@ -100,22 +113,45 @@ public class TaskController {
    */
   public void loadTaskListFromCSV(String filename) {
     try {
-      model.loadTasksFromCSV(filename);
-      JOptionPane.showMessageDialog(null, "Task list loaded from CSV file: " + filename, "Success", JOptionPane.INFORMATION_MESSAGE);
+      List<CsvRowError> errors = model.loadTasksFromCSV(filename);
+      if (errors.isEmpty()) {
+        JOptionPane.showMessageDialog(null, "Task list loaded from CSV file: " + filename, "Success", JOptionPane.INFORMATION_MESSAGE);
+      } else {
+        JOptionPane.showMessageDialog(null, "Task list loaded from CSV file: " + filename + "\n"
+            + CsvRowError.summarize(errors), "Loaded with errors", JOptionPane.WARNING_MESSAGE);
+      }
     } catch (IOException e) {
       JOptionPane.showMessageDialog(null, "Error loading tasks from CSV: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
     }
   }
 
+  /**
+   * Saves the task list to a CSV file on a background thread.
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to, on the background thread.
+   * @return A future that completes when the file is saved; cancelling it stops the save.
+   */
+  public CompletableFuture<Void> saveTaskListToCSVAsync(String filename, TaskProgressListener progress) {
+    return model.saveTasksToCSVAsync(filename, progress);
+  }
+
+  /**
+   * Loads tasks from a CSV file on a background thread.
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to, on the background thread.
+   * @return A future holding the malformed rows; cancelling it stops the load.
+   */
+  public CompletableFuture<List<CsvRowError>> loadTaskListFromCSVAsync(String filename, TaskProgressListener progress) {
+    return model.loadTasksFromCSVAsync(filename, progress);
+  }
+
   /**
    * Gets tasks filtered by completion status.
    * @param completed The completion status to filter by.
    * @return A list of tasks filtered by completion status.
    */
   public List<Task> getTasksByCompletion(boolean completed) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.isCompleted() == completed)
-        .collect(Collectors.toList());
+    return model.getTasksByCompletion(completed);
   }
 
   /**
@@ -124,9 +160,7 @@ public class TaskController {
    * @return A list of tasks filtered by priority.
    */
   public List<Task> getTasksByPriority(Priority priority) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.getPriority() == priority)
-        .collect(Collectors.toList());
+    return model.getTasksByPriority(priority);
   }
 
   /**
@@ -135,9 +169,44 @@ public class TaskController {
    * @return A list of tasks filtered by due date.
    */
   public List<Task> getTasksByDate(LocalDate filterDate) {
-    return model.getAllTasks().stream()
-        .filter(task -> task.getDueDate().isEqual(filterDate) || task.getDueDate().isAfter(filterDate))
-        .collect(Collectors.toList());
+    return model.getTasksByDate(filterDate);
+  }
+
+  /**
+   * Gets tasks that are not completed and were due before the current date.
+   * @param currentDate The source of the current date.
+   * @return A list of overdue tasks.
+   */
+  public List<Task> getOverdueTasks(IDate currentDate) {
+    return model.getOverdueTasks(currentDate);
+  }
+
+  /**
+   * Gets tasks that match a query combining several criteria, from the query cache if the
+   * tasks haven't changed since the same query last ran.
+   * @param query The query to run.
+   * @return A read-only list of the matching tasks, sorted and limited as the query says.
+   */
+  public List<Task> query(TaskQuery query) {
+    return queryCache.query(query);
+  }
+
+  /**
+   * Gets one page of the tasks that match a query, from the query cache if the tasks
+   * haven't changed since the same page was last fetched.
+   * @param query The query to run, whose limit is the size of the page.
+   * @return The page, with the query for the page after it.
+   */
+  public TaskPage queryPage(TaskQuery query) {
+    return queryCache.queryPage(query);
+  }
+
+  /**
+   * Gets the hit and miss counts of the query cache.
+   * @return A snapshot of the statistics of the query cache.
+   */
+  public TaskQueryCache.Stats getQueryCacheStats() {
+    return queryCache.stats();
   }
 
   /**
@@ -0,0 +1,165 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that CSV task files are split into rows the way they are parsed, also for files
+ * written before descriptions were quoted, whose descriptions may hold a lone double quote.
+ * Each file is read in chunks of many sizes, which must all give the same tasks and errors
+ * as parsing the whole file at once, and a LazyTaskList over the file must hold the same
+ * tasks, also after changes and after the model is saved over the file it was opened from.
+ * Run with {@code java org.example.TaskCsvCheck}.
+ */
+public class TaskCsvCheck {
+  private static final int[] CHUNK_SIZES = {1, 7, 64, 1024, TaskCsvReader.DEFAULT_CHUNK_SIZE};
+
+  /**
+   * Runs the checks.
+   *
+   * @param args Not used.
+   * @throws IOException Never, the files are read from memory.
+   */
+  public static void main(String[] args) throws IOException {
+    StringBuilder legacy = new StringBuilder();
+    for (int i = 1; i <= 200; i++) {
+      // A quote inside an unquoted field is an ordinary character, as the old writer left it
+      legacy.append(i).append(i % 10 == 0 ? ",2\" pipe" : ",Task " + i).append(",2024-01-01,false,RED\n");
+    }
+    legacy.append("201,\"Two\nlines, \"\"quoted\"\"\",2024-01-02,true,GREEN\n");
+    legacy.append("202,After \" the quoted row,2024-01-03,false,YELLOW\n");
+    checkFile("mid-field quotes", legacy.toString(), Integer.MAX_VALUE, 202, 0);
+    // A row with an ID that doesn't parse is left out of the ID table, as a full read skips it
+    checkLazy("mid-field quotes", legacy + "203,Bad date,2024-13-01,false,RED\n");
+
+    StringBuilder unclosed = new StringBuilder("1,\"Never closed,2024-01-01,false,RED\n");
+    for (int i = 2; i <= 100; i++) {
+      unclosed.append(i).append(",Task ").append(i).append(",2024-01-01,false,RED\n");
+    }
+    // Without a limit the open quote swallows the whole file as one malformed row
+    checkFile("unclosed quote", unclosed.toString(), Integer.MAX_VALUE, 0, 1);
+    // With one, the row ends at the first line break past the limit and the rest is read
+    String cut = unclosed.substring(unclosed.indexOf("\n", 256) + 1);
+    int rest = cut.split("\n").length;
+    checkFile("unclosed quote with a limit", unclosed.toString(), 256, rest, 1);
+
+    System.out.println("OK");
+  }
+
+  // Reads the file in every chunk size and compares the result with parsing it whole
+  private static void checkFile(String name, String csv, int maxRowSize, int tasks, int errors)
+      throws IOException {
+    // One chunk larger than the file parses it whole
+    Result expected = read(csv, csv.getBytes(StandardCharsets.UTF_8).length + 1, maxRowSize);
+    check(expected.tasks.size() == tasks && expected.errors.size() == errors,
+        name + ": expected " + tasks + " tasks and " + errors + " errors, got " + expected.tasks.size()
+            + " and " + expected.errors);
+    for (int chunkSize : CHUNK_SIZES) {
+      Result result = read(csv, chunkSize, maxRowSize);
+      check(result.equals(expected), name + ": chunks of " + chunkSize + " bytes read differently");
+    }
+  }
+
+  // Opens the file as a LazyTaskList, which must hold the tasks a full read finds
+  private static void checkLazy(String name, String csv) throws IOException {
+    Path directory = Files.createTempDirectory("task-csv-check");
+    Path file = directory.resolve("tasks.csv");
+    Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+    List<Task> expected = read(csv, TaskCsvReader.DEFAULT_CHUNK_SIZE, Integer.MAX_VALUE).tasks;
+    try (LazyTaskList list = LazyTaskList.open(file)) {
+      check(list.size() == expected.size(), name + ": the ID table holds " + list.size() + " of "
+          + expected.size() + " tasks");
+      checkSame(name + ", opened", list.getAllTasks(), expected);
+      for (Task task : expected) {
+        Task found = list.getTaskById(task.getId());
+        check(found != null && found.toCSVString().equals(task.toCSVString()),
+            name + ": task " + task.getId() + " is not found by ID");
+      }
+
+      // Change the model, then save it over the file the list reads from
+      TaskModel model = new TaskModel(LocalDate.of(2024, 1, 1), list);
+      List<Task> before = model.getAllTasks();
+      model.removeTask(expected.get(0).getId());
+      model.editTask(expected.get(1).getId(), "Edited", LocalDate.of(2024, 2, 1), Priority.GREEN);
+      model.addTask(new Task("Added", LocalDate.of(2024, 3, 1), false, Priority.YELLOW));
+      checkSame(name + ", snapshot before the changes", before, expected);
+      List<Task> changed = model.getAllTasks();
+      check(changed.size() == expected.size() && model.getTaskById(expected.get(0).getId()) == null
+          && changed.get(0).getDescription().equals("Edited"), name + ": changes are not in the list");
+      model.saveTasksToCSV(file.toString());
+      checkSame(name + ", after saving over the file", list.getAllTasks(), changed);
+      checkSame(name + ", saved file", read(new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+          TaskCsvReader.DEFAULT_CHUNK_SIZE, Integer.MAX_VALUE).tasks, changed);
+    } finally {
+      Files.deleteIfExists(directory.resolve("tasks.csv" + LazyTaskList.INDEX_SUFFIX));
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  private static void checkSame(String name, List<Task> tasks, List<Task> expected) {
+    check(new Result(tasks, List.of()).equals(new Result(expected, List.of())),
+        name + ": " + tasks.size() + " tasks differ from the " + expected.size() + " expected");
+  }
+
+  private static Result read(String csv, int chunkSize, int maxRowSize) throws IOException {
+    TaskCsvReader reader = new TaskCsvReader(chunkSize, ForkJoinPool.commonPool(), maxRowSize);
+    byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+    TaskCsvReader.Result result = reader.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    return new Result(result.getTasks(), result.getErrors());
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new IllegalStateException("Check failed: " + what);
+    }
+  }
+
+  /**
+   * The tasks and errors of a read, compared by value.
+   */
+  private static class Result {
+    private final List<Task> tasks;
+    private final List<CsvRowError> errors;
+
+    Result(List<Task> tasks, List<CsvRowError> errors) {
+      this.tasks = tasks;
+      this.errors = errors;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Result)) {
+        return false;
+      }
+      Result other = (Result) obj;
+      if (tasks.size() != other.tasks.size() || errors.size() != other.errors.size()) {
+        return false;
+      }
+      for (int i = 0; i < tasks.size(); i++) {
+        if (!tasks.get(i).toCSVString().equals(other.tasks.get(i).toCSVString())) {
+          return false;
+        }
+      }
+      for (int i = 0; i < errors.size(); i++) {
+        if (errors.get(i).getRow() != other.errors.get(i).getRow()
+            || !errors.get(i).getMessage().equals(other.errors.get(i).getMessage())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return tasks.size();
+    }
+  }
+}
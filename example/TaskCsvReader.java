@@ -0,0 +1,460 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reads tasks from CSV files in the format written by Task.toCSVString:
+ * {@code id,description,yyyy-mm-dd,completed,PRIORITY}, one task per row.
+ * Fields are parsed as described in RFC 4180, so a description may contain commas, quotes
+ * and line breaks when it is enclosed in double quotes.
+ *
+ * <p>The file is read through NIO byte buffers in large chunks. A single pass over the bytes
+ * finds the last row boundary in each chunk, and the chunks are then parsed in parallel,
+ * straight from the bytes, without splitting rows into intermediate Strings. The tasks are
+ * returned in file order. Rows that can't be parsed are reported instead of loaded, and so
+ * are rows longer than 16 MB, which are most likely a quote that is never closed; such a
+ * row ends at its next line break, as CsvRowScanner describes.
+ *
+ * <p>Files compressed with gzip or the block format are recognized by their first bytes and
+ * decompressed on the reader's executor ahead of the parsers.
+ */
+public class TaskCsvReader {
+  static final int DEFAULT_CHUNK_SIZE = 4 << 20; // 4 MB per parse task
+  static final int DEFAULT_MAX_ROW_SIZE = 16 << 20; // Bytes a row may take before it counts as malformed
+
+  private static final int FIELD_COUNT = 5;
+  private static final Priority[] PRIORITIES = Priority.values();
+  private static final byte[][] PRIORITY_NAMES = new byte[PRIORITIES.length][];
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+  static {
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      PRIORITY_NAMES[i] = PRIORITIES[i].name().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private final int chunkSize;
+  private final Executor executor;
+  private final int maxChunksInFlight;
+  private final int maxRowSize;
+
+  /**
+   * Constructs a reader that parses 4 MB chunks on the common ForkJoin pool.
+   */
+  public TaskCsvReader() {
+    this(DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a reader with the specified chunk size and executor to parse chunks on.
+   * @param chunkSize The number of bytes read and handed to a parse task at a time.
+   * @param executor The executor that parses the chunks.
+   */
+  public TaskCsvReader(int chunkSize, Executor executor) {
+    this(chunkSize, executor, DEFAULT_MAX_ROW_SIZE);
+  }
+
+  /**
+   * Constructs a reader with the specified chunk size, executor and longest row.
+   * @param chunkSize The number of bytes read and handed to a parse task at a time.
+   * @param executor The executor that parses the chunks.
+   * @param maxRowSize The number of bytes above which a row is reported as malformed.
+   */
+  TaskCsvReader(int chunkSize, Executor executor, int maxRowSize) {
+    this.chunkSize = chunkSize;
+    this.executor = executor;
+    // Bounds the bytes held in memory while the parsers catch up with the reader
+    this.maxChunksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+    this.maxRowSize = maxRowSize;
+  }
+
+  /**
+   * Reads all tasks from a CSV file.
+   * @param file The file to read.
+   * @return The tasks and the malformed rows of the file.
+   * @throws IOException If the file can't be read.
+   */
+  public Result read(Path file) throws IOException {
+    return read(file, TaskProgressListener.NONE);
+  }
+
+  /**
+   * Reads all tasks from a CSV file, reporting the progress after each chunk. An exception
+   * thrown by the listener stops the read. The size of a compressed file is reported as not
+   * known, since the bytes reported are the uncompressed bytes.
+   * @param file The file to read.
+   * @param progress The listener to report the progress to.
+   * @return The tasks and the malformed rows of the file.
+   * @throws IOException If the file can't be read.
+   */
+  public Result read(Path file, TaskProgressListener progress) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Compression compression = Compression.detect(channel);
+      if (compression == Compression.NONE) {
+        return read(channel, channel.size(), progress);
+      }
+      try (ReadableByteChannel data = compression.decompress(channel, executor)) {
+        return read(data, -1, progress);
+      }
+    }
+  }
+
+  /**
+   * Reads all tasks from a channel holding CSV data.
+   * @param channel The channel to read from.
+   * @return The tasks and the malformed rows of the data.
+   * @throws IOException If the channel can't be read.
+   */
+  public Result read(ReadableByteChannel channel) throws IOException {
+    return read(channel, -1, TaskProgressListener.NONE);
+  }
+
+  /**
+   * Reads all tasks from a channel holding CSV data, reporting the progress after each chunk.
+   * @param channel The channel to read from.
+   * @param totalBytes The number of bytes the channel holds, or -1 if not known.
+   * @param progress The listener to report the progress to.
+   * @return The tasks and the malformed rows of the data.
+   * @throws IOException If the channel can't be read.
+   */
+  public Result read(ReadableByteChannel channel, long totalBytes, TaskProgressListener progress) throws IOException {
+    Result result = new Result();
+    Deque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+    ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+    byte[] carry = new byte[0]; // Start of a row that continues in the next chunk
+    CsvRowScanner scanner = new CsvRowScanner(maxRowSize); // Has seen every byte up to the end of carry
+    long skipped = 0; // Bytes of a row that is too long, dropped from carry
+    boolean endOfInput = false;
+    while (!endOfInput) {
+      buffer.clear();
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          endOfInput = true;
+          break;
+        }
+      }
+      byte[] data = new byte[carry.length + buffer.position()];
+      System.arraycopy(carry, 0, data, 0, carry.length);
+      System.arraycopy(buffer.array(), 0, data, carry.length, buffer.position());
+
+      int start = 0; // Start of the rows not handed to a parser yet
+      int end = 0; // End of the last complete row
+      for (int i = carry.length; i < data.length; i++) {
+        if (scanner.endsRow(data[i])) {
+          if (scanner.isTooLong()) {
+            // Parse the rows before it and report the row instead of parsing it
+            submit(inFlight, data, start, end);
+            inFlight.add(CompletableFuture.completedFuture(Chunk.tooLong(skipped + i + 1 - end)));
+            skipped = 0;
+            start = i + 1;
+          }
+          end = i + 1;
+        }
+      }
+      if (endOfInput && (end < data.length || skipped > 0)) {
+        if (scanner.isTooLong()) {
+          submit(inFlight, data, start, end);
+          inFlight.add(CompletableFuture.completedFuture(Chunk.tooLong(skipped + data.length - end)));
+          start = data.length;
+        }
+        end = data.length; // Last row without a line break
+      }
+      submit(inFlight, data, start, end);
+      if (scanner.isTooLong() && end < data.length) {
+        skipped += data.length - end; // Its bytes are never parsed, so they needn't be kept
+        end = data.length;
+      }
+      carry = Arrays.copyOfRange(data, end, data.length);
+      if (inFlight.size() >= maxChunksInFlight) {
+        result.append(join(inFlight.poll()));
+        progress.progress(result.rows, -1, result.bytes, totalBytes);
+      }
+    }
+    while (!inFlight.isEmpty()) {
+      result.append(join(inFlight.poll()));
+      progress.progress(result.rows, -1, result.bytes, totalBytes);
+    }
+    return result;
+  }
+
+  // Hands the rows in data[start, end) to a parser
+  private void submit(Deque<CompletableFuture<Chunk>> inFlight, byte[] data, int start, int end) {
+    if (end > start) {
+      inFlight.add(CompletableFuture.supplyAsync(() -> parse(data, start, end), executor));
+    }
+  }
+
+  // Parses the complete rows in data[from, end)
+  static Chunk parse(byte[] data, int from, int end) {
+    Chunk chunk = new Chunk();
+    chunk.bytes = end - from;
+    int[] starts = new int[FIELD_COUNT];
+    int[] ends = new int[FIELD_COUNT];
+    boolean[] escaped = new boolean[FIELD_COUNT];
+    int pos = from;
+    while (pos < end) {
+      chunk.rows++;
+      int fields = 0;
+      String error = null;
+      boolean rowDone = false;
+      while (!rowDone) {
+        int start;
+        int fieldEnd;
+        boolean hasEscapes = false;
+        if (pos < end && data[pos] == '"') {
+          // Quoted field: runs to the next quote that isn't doubled
+          start = ++pos;
+          while (pos < end && !(data[pos] == '"' && (pos + 1 >= end || data[pos + 1] != '"'))) {
+            if (data[pos] == '"') {
+              hasEscapes = true;
+              pos++;
+            }
+            pos++;
+          }
+          if (pos >= end) {
+            error = "Unterminated quoted field";
+            fieldEnd = end;
+          } else {
+            fieldEnd = pos++;
+            if (pos < end && data[pos] != ',' && data[pos] != '\n' && data[pos] != '\r') {
+              error = "Unexpected character after closing quote";
+            }
+          }
+          // Skip to the end of the field
+          while (pos < end && data[pos] != ',' && data[pos] != '\n') {
+            pos++;
+          }
+        } else {
+          start = pos;
+          while (pos < end && data[pos] != ',' && data[pos] != '\n') {
+            pos++;
+          }
+          fieldEnd = pos;
+        }
+        if (pos >= end || data[pos] == '\n') {
+          rowDone = true;
+          if (fieldEnd == pos && fieldEnd > start && data[fieldEnd - 1] == '\r') {
+            fieldEnd--; // CRLF line ending after an unquoted field
+          }
+        }
+        if (fields < FIELD_COUNT) {
+          starts[fields] = start;
+          ends[fields] = fieldEnd;
+          escaped[fields] = hasEscapes;
+        }
+        fields++;
+        pos++; // Skip the comma or line break
+      }
+      if (fields == 1 && ends[0] == starts[0] && error == null) {
+        chunk.rows--; // Blank line
+        continue;
+      }
+      if (error == null && fields != FIELD_COUNT) {
+        error = "Expected " + FIELD_COUNT + " fields but found " + fields;
+      }
+      if (error == null) {
+        error = parseTask(data, starts, ends, escaped, chunk.tasks);
+      }
+      if (error != null) {
+        chunk.errors.add(new CsvRowError(chunk.rows, error));
+      }
+    }
+    return chunk;
+  }
+
+  /**
+   * Parses a single row.
+   * @param data The bytes of the row, with or without its line break.
+   * @param end The number of bytes of the row.
+   * @return The task, or null if the row is malformed.
+   */
+  static Task parseRow(byte[] data, int end) {
+    return parseRow(data, 0, end);
+  }
+
+  /**
+   * Parses a single row that starts inside an array.
+   * @param data The bytes holding the row.
+   * @param from The index of the first byte of the row.
+   * @param end The index after the last byte of the row, with or without its line break.
+   * @return The task, or null if the row is malformed.
+   */
+  static Task parseRow(byte[] data, int from, int end) {
+    Chunk chunk = parse(data, from, end);
+    return chunk.tasks.isEmpty() ? null : chunk.tasks.get(0);
+  }
+
+  // Builds a task from the five fields of a row, returning an error message if it can't
+  private static String parseTask(byte[] data, int[] starts, int[] ends, boolean[] escaped, List<Task> tasks) {
+    long id = parseInt(data, starts[0], ends[0]);
+    if (id < 0 || id > Integer.MAX_VALUE) {
+      return "Invalid task ID";
+    }
+    LocalDate date = parseDate(data, starts[2], ends[2]);
+    if (date == null) {
+      return "Invalid date, expected yyyy-mm-dd";
+    }
+    int completed = matches(data, starts[3], ends[3], TRUE) ? 1 : matches(data, starts[3], ends[3], FALSE) ? 0 : -1;
+    if (completed < 0) {
+      return "Invalid completion status, expected true or false";
+    }
+    Priority priority = null;
+    for (int i = 0; i < PRIORITIES.length && priority == null; i++) {
+      if (matches(data, starts[4], ends[4], PRIORITY_NAMES[i])) {
+        priority = PRIORITIES[i];
+      }
+    }
+    if (priority == null) {
+      return "Invalid priority";
+    }
+    String description = decode(data, starts[1], ends[1], escaped[1]);
+    tasks.add(new Task((int) id, description, date, completed == 1, priority));
+    return null;
+  }
+
+  // Parses a non-negative decimal number, returning -1 if the bytes aren't one
+  private static long parseInt(byte[] data, int start, int end) {
+    if (start == end || end - start > 10) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      int digit = data[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  // Parses an ISO yyyy-mm-dd date, returning null if the bytes aren't one
+  private static LocalDate parseDate(byte[] data, int start, int end) {
+    if (end - start != 10 || data[start + 4] != '-' || data[start + 7] != '-') {
+      return null;
+    }
+    long year = parseInt(data, start, start + 4);
+    long month = parseInt(data, start + 5, start + 7);
+    long day = parseInt(data, start + 8, end);
+    if (year < 0 || month < 0 || day < 0) {
+      return null;
+    }
+    try {
+      return LocalDate.of((int) year, (int) month, (int) day);
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+
+  private static boolean matches(byte[] data, int start, int end, byte[] expected) {
+    if (end - start != expected.length) {
+      return false;
+    }
+    for (int i = 0; i < expected.length; i++) {
+      if (data[start + i] != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Decodes a field as UTF-8, collapsing the doubled quotes of a quoted field
+  private static String decode(byte[] data, int start, int end, boolean escaped) {
+    if (!escaped) {
+      return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+    byte[] unescaped = new byte[end - start];
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      unescaped[length++] = data[i];
+      if (data[i] == '"') {
+        i++; // Skip the second quote of the pair
+      }
+    }
+    return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private static Chunk join(CompletableFuture<Chunk> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * The tasks and malformed rows parsed from one chunk, with row numbers local to the chunk.
+   */
+  static class Chunk {
+    private final List<Task> tasks = new ArrayList<>();
+    private final List<CsvRowError> errors = new ArrayList<>();
+    private long rows;
+    private long bytes;
+
+    // A chunk for a row that is too long to parse, reported as malformed
+    static Chunk tooLong(long bytes) {
+      Chunk chunk = new Chunk();
+      chunk.rows = 1;
+      chunk.bytes = bytes;
+      chunk.errors.add(new CsvRowError(1, "Row too long, probably an unclosed quote"));
+      return chunk;
+    }
+  }
+
+  /**
+   * The tasks read from a file, in file order, and the rows that could not be read.
+   */
+  public static class Result {
+    private final List<Task> tasks = new ArrayList<>();
+    private final List<CsvRowError> errors = new ArrayList<>();
+    private long rows;
+    private long bytes;
+
+    // Adds the next chunk, turning its local row numbers into row numbers of the whole file
+    private void append(Chunk chunk) {
+      tasks.addAll(chunk.tasks);
+      for (CsvRowError error : chunk.errors) {
+        errors.add(new CsvRowError(rows + error.getRow(), error.getMessage()));
+      }
+      rows += chunk.rows;
+      bytes += chunk.bytes;
+    }
+
+    /**
+     * Gets the tasks that were read, in file order.
+     * @return The tasks.
+     */
+    public List<Task> getTasks() {
+      return tasks;
+    }
+
+    /**
+     * Gets the rows that could not be read.
+     * @return The malformed rows, in file order.
+     */
+    public List<CsvRowError> getErrors() {
+      return errors;
+    }
+  }
+}
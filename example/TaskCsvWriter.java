@@ -0,0 +1,250 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes tasks to CSV files in the format of Task.toCSVString, one task per row.
+ * Each task is encoded straight into a reusable byte buffer, which is written through a
+ * FileChannel whenever it fills up, so no Strings are built per task.
+ *
+ * <p>The tasks are written to a temporary file next to the target, which is then renamed over
+ * the target. A crash during a save leaves the previous file in place. How hard the data is
+ * pushed to the disk before the rename is set by a SyncPolicy.
+ *
+ * <p>A target ending in {@code .gz} or {@code .tkz} is compressed as Compression.forFile says.
+ * The buffers are then compressed on the common ForkJoin pool while the next ones are encoded.
+ */
+public class TaskCsvWriter {
+  static final int DEFAULT_BUFFER_SIZE = 256 << 10; // 256 KB per write
+
+  private static final Priority[] PRIORITIES = Priority.values();
+  private static final byte[][] PRIORITY_NAMES = new byte[PRIORITIES.length][];
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+  private static final int MAX_CHAR_BYTES = 4; // Longest UTF-8 encoding of one code point
+
+  static {
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      PRIORITY_NAMES[i] = PRIORITIES[i].name().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private final SyncPolicy syncPolicy;
+  private final byte[] buffer;
+  private int position; // Number of encoded bytes not yet written to the file
+  private TaskProgressListener progress = TaskProgressListener.NONE;
+  private long rowsWritten;
+  private long totalRows;
+  private long bytesWritten;
+
+  /**
+   * Constructs a writer that forces the data to the disk before replacing the target.
+   */
+  public TaskCsvWriter() {
+    this(SyncPolicy.DATA, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a writer with the specified sync policy and buffer size.
+   * @param syncPolicy How hard the data is pushed to the disk before the target is replaced.
+   * @param bufferSize The number of bytes encoded before they are written to the file.
+   */
+  public TaskCsvWriter(SyncPolicy syncPolicy, int bufferSize) {
+    this.syncPolicy = syncPolicy;
+    this.buffer = new byte[Math.max(bufferSize, 128)];
+  }
+
+  /**
+   * Writes the tasks to a file, replacing it atomically if it exists.
+   * A writer reuses its buffer, so it must not be used by two threads at once.
+   * @param target The file to write.
+   * @param tasks The tasks to write, in order.
+   * @throws IOException If the file can't be written. The target is left untouched.
+   */
+  public void write(Path target, Iterable<Task> tasks) throws IOException {
+    write(target, tasks, TaskProgressListener.NONE);
+  }
+
+  /**
+   * Writes the tasks to a file, replacing it atomically if it exists, and reports the
+   * progress each time the buffer is written. An exception thrown by the listener stops the
+   * save and leaves the target untouched. The bytes reported are the uncompressed bytes.
+   * @param target The file to write.
+   * @param tasks The tasks to write, in order.
+   * @param progress The listener to report the progress to.
+   * @throws IOException If the file can't be written. The target is left untouched.
+   */
+  public void write(Path target, Iterable<Task> tasks, TaskProgressListener progress) throws IOException {
+    this.progress = progress;
+    this.totalRows = tasks instanceof Collection ? ((Collection<?>) tasks).size()
+        : tasks instanceof TaskSnapshot ? ((TaskSnapshot) tasks).size() : -1;
+    Compression compression = Compression.forFile(target);
+    AtomicFiles.replace(target, syncPolicy, channel -> {
+      position = 0;
+      rowsWritten = 0;
+      bytesWritten = 0;
+      if (compression == Compression.NONE) {
+        writeRows(tasks, channel);
+      } else {
+        try (WritableByteChannel compressed = compression.compress(channel, ForkJoinPool.commonPool())) {
+          writeRows(tasks, compressed);
+        }
+      }
+    });
+  }
+
+  private void writeRows(Iterable<Task> tasks, WritableByteChannel channel) throws IOException {
+    for (Task task : tasks) {
+      encode(task, channel);
+      rowsWritten++;
+    }
+    flush(channel);
+  }
+
+  // Encodes one row: id,description,yyyy-mm-dd,completed,PRIORITY
+  private void encode(Task task, WritableByteChannel channel) throws IOException {
+    ensure(channel, 64); // Room for every field except the description
+    putInt(task.getId());
+    buffer[position++] = ',';
+    putDescription(task.getDescription(), channel);
+    ensure(channel, 64);
+    buffer[position++] = ',';
+    putDate(task.getDate());
+    buffer[position++] = ',';
+    put(task.getCompleted() ? TRUE : FALSE);
+    buffer[position++] = ',';
+    Priority priority = task.getPriority();
+    put(priority == null ? NULL : PRIORITY_NAMES[priority.ordinal()]);
+    buffer[position++] = '\n';
+  }
+
+  private void put(byte[] bytes) {
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private void putInt(int value) {
+    if (value < 0) {
+      put(Integer.toString(value).getBytes(StandardCharsets.US_ASCII)); // Never an allocated ID
+      return;
+    }
+    putDigits(value, digitCount(value));
+  }
+
+  // Writes the lowest digits of a non-negative value, zero padded to the specified width
+  private void putDigits(int value, int width) {
+    int end = position + width;
+    for (int i = end - 1; i >= position; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    position = end;
+  }
+
+  private static int digitCount(int value) {
+    int digits = 1;
+    while (value >= 10) {
+      value /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  private void putDate(LocalDate date) {
+    if (date == null) {
+      put(NULL);
+    } else if (date.getYear() < 0 || date.getYear() > 9999) {
+      put(date.toString().getBytes(StandardCharsets.US_ASCII)); // Signed ISO year
+    } else {
+      putDigits(date.getYear(), 4);
+      buffer[position++] = '-';
+      putDigits(date.getMonthValue(), 2);
+      buffer[position++] = '-';
+      putDigits(date.getDayOfMonth(), 2);
+    }
+  }
+
+  // Encodes the description as UTF-8, quoted as in Task.toCSVString when it needs to be
+  private void putDescription(String description, WritableByteChannel channel) throws IOException {
+    if (description == null) {
+      put(NULL);
+      return;
+    }
+    boolean quoted = needsQuotes(description);
+    if (quoted) {
+      buffer[position++] = '"';
+    }
+    byte[] bytes = buffer;
+    int pos = position;
+    int length = description.length();
+    for (int i = 0; i < length; i++) {
+      if (bytes.length - pos < MAX_CHAR_BYTES + 1) {
+        position = pos;
+        flush(channel);
+        pos = position;
+      }
+      char c = description.charAt(i);
+      if (c < 0x80) {
+        if (c == '"' && quoted) {
+          bytes[pos++] = '"';
+        }
+        bytes[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[pos++] = (byte) (0xC0 | c >> 6);
+        bytes[pos++] = (byte) (0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(description.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, description.charAt(++i));
+        bytes[pos++] = (byte) (0xF0 | codePoint >> 18);
+        bytes[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        bytes[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        bytes[pos++] = (byte) (0x80 | codePoint & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        bytes[pos++] = '?'; // Unpaired surrogate, replaced as String.getBytes does
+      } else {
+        bytes[pos++] = (byte) (0xE0 | c >> 12);
+        bytes[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+        bytes[pos++] = (byte) (0x80 | c & 0x3F);
+      }
+    }
+    position = pos;
+    if (quoted) {
+      ensure(channel, 1);
+      buffer[position++] = '"';
+    }
+  }
+
+  private static boolean needsQuotes(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void ensure(WritableByteChannel channel, int bytes) throws IOException {
+    if (buffer.length - position < bytes) {
+      flush(channel);
+    }
+  }
+
+  private void flush(WritableByteChannel channel) throws IOException {
+    ByteBuffer pending = ByteBuffer.wrap(buffer, 0, position);
+    while (pending.hasRemaining()) {
+      channel.write(pending);
+    }
+    bytesWritten += position;
+    position = 0;
+    progress.progress(rowsWritten, totalRows, bytesWritten, -1);
+  }
+}
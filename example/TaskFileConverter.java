@@ -0,0 +1,72 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Converts task files between the CSV format and the binary task format.
+ * Both formats hold the same fields, so converting a CSV file written by the application to
+ * binary and back gives the same bytes.
+ *
+ * <p>Usage: {@code java org.example.TaskFileConverter tasks.csv tasks.tkb} converts CSV to
+ * binary, and {@code java org.example.TaskFileConverter tasks.tkb tasks.csv} converts back.
+ * The direction is taken from the {@code .csv} extension of either file, which may be
+ * followed by {@code .gz} or {@code .tkz} for a compressed CSV file.
+ */
+public class TaskFileConverter {
+
+  /**
+   * Converts the file named by the first argument into the file named by the second.
+   *
+   * @param args The source and target file names.
+   * @throws IOException If a file can't be read or written.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: TaskFileConverter <source> <target>");
+      return;
+    }
+    Path source = Paths.get(args[0]);
+    Path target = Paths.get(args[1]);
+    if (isCsv(source)) {
+      List<CsvRowError> errors = csvToBinary(source, target);
+      if (!errors.isEmpty()) {
+        System.out.println(CsvRowError.summarize(errors));
+      }
+    } else {
+      binaryToCsv(source, target);
+    }
+  }
+
+  /**
+   * Converts a CSV task file to a binary task file with a description dictionary.
+   *
+   * @param csv The CSV file to read.
+   * @param binary The binary file to write.
+   * @return The rows of the CSV file that could not be converted.
+   * @throws IOException If a file can't be read or written.
+   */
+  public static List<CsvRowError> csvToBinary(Path csv, Path binary) throws IOException {
+    TaskCsvReader.Result result = new TaskCsvReader().read(csv);
+    TaskBinaryWriter.write(binary, result.getTasks(), true, SyncPolicy.DATA);
+    return result.getErrors();
+  }
+
+  /**
+   * Converts a binary task file to a CSV task file.
+   *
+   * @param binary The binary file to read.
+   * @param csv The CSV file to write.
+   * @throws IOException If a file can't be read or written.
+   */
+  public static void binaryToCsv(Path binary, Path csv) throws IOException {
+    new TaskCsvWriter().write(csv, TaskBinaryReader.read(binary));
+  }
+
+  private static boolean isCsv(Path file) {
+    String name = file.getFileName().toString().toLowerCase();
+    return name.endsWith(".csv") || name.endsWith(".csv.gz") || name.endsWith(".csv.tkz");
+  }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique task IDs.
+ * Each thread reserves a block of IDs from a shared counter with a single atomic operation
+ * and then allocates from its own block without any contention. IDs read back from saved
+ * files are reported through observe, which moves the counter past them so that new tasks
+ * never reuse a persisted ID, also after a restart. The counter is a long, so it can pass the
+ * largest int ID without wrapping around; once it has, no IDs are left to hand out.
+ */
+final class TaskIdAllocator {
+  private static final int BLOCK_SIZE = 64; // Number of IDs a thread reserves at a time
+
+  private static final long END = Integer.MAX_VALUE + 1L; // One past the largest ID
+
+  private static final AtomicLong nextBlockStart = new AtomicLong(1); // First unreserved ID
+  private static final AtomicInteger highestObserved = new AtomicInteger(0); // Highest loaded ID
+  private static final ThreadLocal<long[]> block = ThreadLocal.withInitial(() -> new long[2]);
+
+  private TaskIdAllocator() {
+  }
+
+  /**
+   * Allocates a new task ID.
+   *
+   * @return An ID that has not been allocated or observed before.
+   * @throws IllegalStateException If every ID up to Integer.MAX_VALUE is taken.
+   */
+  static int next() {
+    long[] range = block.get(); // range[0] = next ID in the block, range[1] = end of the block
+    // A block reserved before a file was loaded may overlap the loaded IDs, so drop it
+    if (range[0] >= range[1] || range[0] <= highestObserved.get()) {
+      range[0] = nextBlockStart.getAndAdd(BLOCK_SIZE);
+      range[1] = Math.min(range[0] + BLOCK_SIZE, END);
+      if (range[0] >= END) {
+        throw new IllegalStateException("No task IDs left: every ID up to " + Integer.MAX_VALUE + " is taken");
+      }
+    }
+    return (int) range[0]++;
+  }
+
+  /**
+   * Records an ID that is already in use, for example one loaded from a file, so that it is
+   * never allocated to a new task.
+   *
+   * @param id The ID in use.
+   */
+  static void observe(int id) {
+    if (id < nextBlockStart.get() && id <= highestObserved.get()) {
+      return; // Already covered, skip the atomic updates
+    }
+    nextBlockStart.accumulateAndGet(id + 1L, Math::max);
+    highestObserved.accumulateAndGet(id, Math::max);
+  }
+
+  /**
+   * Gets the highest ID that has been reserved or observed so far.
+   *
+   * @return The high-water mark of the IDs.
+   */
+  static int highWaterMark() {
+    return (int) Math.max(Math.min(nextBlockStart.get() - 1, Integer.MAX_VALUE), highestObserved.get());
+  }
+}
@@ -0,0 +1,429 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the tasks of a TaskModel, so that filter queries cost time in
+ * proportion to the number of matching tasks instead of the size of the whole list.
+ * Due dates are kept in maps sorted by epoch day, which answer range queries in
+ * O(log n + k).
+ * The words of the descriptions are kept in a TaskTextIndex.
+ * The index remembers the values each task was filed under, which lets it move a task
+ * to the right buckets after the task has been changed through its setters.
+ * Buckets are sorted by the position of each task in the list, which a task keeps when it is
+ * replaced or re-filed, so filters return tasks in list order as a scan of the list would.
+ */
+class TaskIndex {
+  private Map<Integer, Entry> entries; // Task ID -> values the task is filed under
+  // Buckets map the position of a task in the list to the task
+  private final Map<Priority, NavigableMap<Long, Task>> byPriority;
+  private NavigableMap<Long, Task> completedTasks;
+  private NavigableMap<Long, Task> notCompletedTasks;
+  private NavigableMap<Long, NavigableMap<Long, Task>> byDay; // Epoch day -> tasks due that day
+  private NavigableMap<Long, NavigableMap<Long, Task>> notCompletedByDay; // Same, open tasks only
+  private long nextPosition; // Position of the next task added to the end of the list
+  private int undated; // Number of tasks without a due date, which the date maps leave out
+  private TaskTextIndex text; // Words of the descriptions -> tasks
+  // Bumped whenever a task is added or removed, or a value of a task changes
+  private long membershipVersion;
+  private long priorityVersion;
+  private long completionVersion;
+  private long dueDateVersion;
+  private long descriptionVersion;
+
+  // Constructor to initialize empty indexes
+  TaskIndex() {
+    this.entries = new HashMap<>();
+    this.byPriority = new EnumMap<>(Priority.class);
+    for (Priority priority : Priority.values()) {
+      byPriority.put(priority, new TreeMap<>());
+    }
+    this.completedTasks = new TreeMap<>();
+    this.notCompletedTasks = new TreeMap<>();
+    this.byDay = new TreeMap<>();
+    this.notCompletedByDay = new TreeMap<>();
+    this.text = new TaskTextIndex();
+  }
+
+  /**
+   * Adds a task to the indexes. A task that replaces one with the same ID takes its position
+   * in the list, as the task lists do; any other task goes to the end.
+   *
+   * @param task The task to add.
+   */
+  void add(Task task) {
+    Entry previous = entries.get(task.getId());
+    Entry entry = new Entry(task, previous != null ? previous.position : nextPosition++);
+    entries.put(task.getId(), entry);
+    if (previous != null) {
+      unfile(previous);
+    }
+    file(entry);
+    membershipVersion++;
+  }
+
+  /**
+   * Removes the task with the specified ID from the indexes.
+   *
+   * @param taskId The ID of the task to remove.
+   */
+  void remove(int taskId) {
+    Entry entry = entries.remove(taskId);
+    if (entry != null) {
+      unfile(entry);
+      membershipVersion++;
+    }
+  }
+
+  /**
+   * Re-files a task after its priority, completion status or due date may have changed.
+   * The task keeps its position in the list, so it is in the same place in each bucket.
+   *
+   * @param task The task that changed.
+   */
+  void update(Task task) {
+    if (task == null) {
+      return;
+    }
+    Entry entry = entries.get(task.getId());
+    if (entry == null || entry.task != task) {
+      add(task);
+      return;
+    }
+    if (!Objects.equals(entry.description, task.getDescription())) {
+      text.remove(task.getId(), entry.description);
+      entry.description = task.getDescription();
+      text.add(task.getId(), entry.description);
+      descriptionVersion++;
+    }
+    if (entry.priority != task.getPriority()) {
+      priorityVersion++;
+      bucketFor(entry.priority).remove(entry.position);
+      entry.priority = task.getPriority();
+      bucketFor(entry.priority).put(entry.position, task);
+    }
+    Long day = epochDay(task);
+    if (entry.completed != task.isCompleted() || !Objects.equals(entry.day, day)) {
+      unfileDay(entry);
+      if (entry.completed != task.isCompleted()) {
+        completionBucket(entry.completed).remove(entry.position);
+        entry.completed = task.isCompleted();
+        completionBucket(entry.completed).put(entry.position, task);
+        completionVersion++;
+      }
+      if (!Objects.equals(entry.day, day)) {
+        dueDateVersion++;
+      }
+      entry.day = day;
+      fileDay(entry);
+    }
+  }
+
+  /**
+   * Gets a stamp of the values a query reads, which changes whenever a task is added or
+   * removed, or a value the query filters or sorts by changes, so that a result computed
+   * for the query is still valid while the stamp is unchanged.
+   *
+   * @param query The query to get the stamp for.
+   * @return The stamp, the sum of the versions of the values the query reads.
+   */
+  long versionFor(TaskQuery query) {
+    TaskQuery.Sort sort = query.getSort();
+    long version = membershipVersion;
+    if (query.getPriorities() != null || sort == TaskQuery.Sort.PRIORITY || sort == TaskQuery.Sort.PRIORITY_DUE_DATE) {
+      version += priorityVersion;
+    }
+    if (query.getCompleted() != null || sort == null) {
+      version += completionVersion; // Unsorted results of a full scan come in completion order
+    }
+    if (query.hasDateRange() || sort == TaskQuery.Sort.DUE_DATE || sort == TaskQuery.Sort.PRIORITY_DUE_DATE) {
+      version += dueDateVersion;
+    }
+    if (query.getText() != null || query.getWords() != null || sort == TaskQuery.Sort.DESCRIPTION) {
+      version += descriptionVersion;
+    }
+    return version;
+  }
+
+  /**
+   * Gets the number of tasks in the indexes.
+   *
+   * @return The number of tasks.
+   */
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Discards the indexes and rebuilds them from the given tasks, in list order. Each task is
+   * read once, so a list that parses its tasks on demand is only read through once.
+   *
+   * @param tasks The tasks to index.
+   */
+  void rebuild(Collection<Task> tasks) {
+    entries = new HashMap<>(capacityFor(tasks.size()));
+    for (Priority priority : Priority.values()) {
+      byPriority.put(priority, new TreeMap<>());
+    }
+    completedTasks = new TreeMap<>();
+    notCompletedTasks = new TreeMap<>();
+    byDay = new TreeMap<>();
+    notCompletedByDay = new TreeMap<>();
+    undated = 0;
+    text = new TaskTextIndex();
+    membershipVersion++;
+    long position = 0;
+    for (Task task : tasks) {
+      Entry entry = new Entry(task, position++);
+      Entry previous = entries.put(task.getId(), entry);
+      if (previous != null) {
+        unfile(previous); // The list held two tasks with the same ID; the later one wins
+      }
+      file(entry);
+    }
+    nextPosition = position;
+  }
+
+  /**
+   * Gets the number of tasks without a due date, which the date ranges never include.
+   *
+   * @return The number of tasks without a due date.
+   */
+  int countUndated() {
+    return undated;
+  }
+
+  /**
+   * Gets the number of tasks without a priority, which the priority buckets leave out.
+   *
+   * @return The number of tasks without a priority.
+   */
+  int countUnprioritized() {
+    int count = entries.size();
+    for (Map<Long, Task> bucket : byPriority.values()) {
+      count -= bucket.size();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the word index over the descriptions of the tasks.
+   *
+   * @return The word index.
+   */
+  TaskTextIndex text() {
+    return text;
+  }
+
+  /**
+   * Gets an indexed task by its ID.
+   *
+   * @param taskId The ID of the task.
+   * @return The task, or null if no task with that ID is indexed.
+   */
+  Task get(int taskId) {
+    Entry entry = entries.get(taskId);
+    return entry == null ? null : entry.task;
+  }
+
+  // Initial capacity of a hash map that holds the specified number of mappings without rehashing
+  private static int capacityFor(int size) {
+    return (int) Math.min(1 << 30, size * 4L / 3 + 1);
+  }
+
+  /**
+   * Gets the tasks with the specified priority.
+   *
+   * @param priority The priority to look up.
+   * @return A list of the tasks with that priority.
+   */
+  List<Task> getByPriority(Priority priority) {
+    return new ArrayList<>(bucketFor(priority).values());
+  }
+
+  /**
+   * Gets the tasks with the specified completion status.
+   *
+   * @param completed The completion status to look up.
+   * @return A list of the tasks with that completion status.
+   */
+  List<Task> getByCompletion(boolean completed) {
+    return new ArrayList<>(completionBucket(completed).values());
+  }
+
+  /**
+   * Gets the tasks due on or after the specified date, ordered by due date.
+   *
+   * @param date The earliest due date to include.
+   * @return A list of the tasks due on or after the date.
+   */
+  List<Task> getOnOrAfter(LocalDate date) {
+    return collect(byDay.tailMap(date.toEpochDay(), true));
+  }
+
+  /**
+   * Gets the tasks due between two dates, both inclusive, ordered by due date.
+   *
+   * @param from The earliest due date to include.
+   * @param to The latest due date to include.
+   * @return A list of the tasks due in the range.
+   */
+  List<Task> getBetween(LocalDate from, LocalDate to) {
+    if (from.isAfter(to)) {
+      return new ArrayList<>();
+    }
+    return collect(byDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true));
+  }
+
+  /**
+   * Gets the tasks that are not completed and were due before the specified date,
+   * ordered by due date.
+   *
+   * @param today The date to check against.
+   * @return A list of the overdue tasks.
+   */
+  List<Task> getOverdue(LocalDate today) {
+    return collect(notCompletedByDay.headMap(today.toEpochDay(), false));
+  }
+
+  /**
+   * Gets a read-only view of the tasks with the specified priority, for a query plan that
+   * reads it while the indexes can't change.
+   *
+   * @param priority The priority to look up.
+   * @return The tasks with that priority, in list order.
+   */
+  Collection<Task> viewByPriority(Priority priority) {
+    return Collections.unmodifiableCollection(bucketFor(priority).values());
+  }
+
+  /**
+   * Gets a read-only view of the tasks with the specified completion status, for a query plan
+   * that reads it while the indexes can't change.
+   *
+   * @param completed The completion status to look up.
+   * @return The tasks with that completion status, in list order.
+   */
+  Collection<Task> viewByCompletion(boolean completed) {
+    return Collections.unmodifiableCollection(completionBucket(completed).values());
+  }
+
+  /**
+   * Gets a read-only view of the days in a range and the tasks due on each, for a query plan
+   * that reads it while the indexes can't change.
+   *
+   * @param from The earliest due date to include, or null for no lower bound.
+   * @param to The latest due date to include, or null for no upper bound.
+   * @param openOnly True to only include tasks that are not completed.
+   * @return The tasks due on each day of the range in list order, by epoch day.
+   */
+  NavigableMap<Long, NavigableMap<Long, Task>> viewDays(LocalDate from, LocalDate to, boolean openOnly) {
+    NavigableMap<Long, NavigableMap<Long, Task>> days = openOnly ? notCompletedByDay : byDay;
+    long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+    long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+    if (first > last) {
+      return Collections.emptyNavigableMap();
+    }
+    return Collections.unmodifiableNavigableMap(days.subMap(first, true, last, true));
+  }
+
+  private static List<Task> collect(Map<Long, NavigableMap<Long, Task>> days) {
+    List<Task> tasks = new ArrayList<>();
+    for (Map<Long, Task> bucket : days.values()) {
+      tasks.addAll(bucket.values());
+    }
+    return tasks;
+  }
+
+  private void file(Entry entry) {
+    bucketFor(entry.priority).put(entry.position, entry.task);
+    completionBucket(entry.completed).put(entry.position, entry.task);
+    fileDay(entry);
+    text.add(entry.task.getId(), entry.description);
+  }
+
+  private void unfile(Entry entry) {
+    bucketFor(entry.priority).remove(entry.position);
+    completionBucket(entry.completed).remove(entry.position);
+    unfileDay(entry);
+    text.remove(entry.task.getId(), entry.description);
+  }
+
+  // Tasks without a due date are kept out of the date maps
+  private void fileDay(Entry entry) {
+    if (entry.day == null) {
+      undated++;
+      return;
+    }
+    byDay.computeIfAbsent(entry.day, day -> new TreeMap<>()).put(entry.position, entry.task);
+    if (!entry.completed) {
+      notCompletedByDay.computeIfAbsent(entry.day, day -> new TreeMap<>()).put(entry.position, entry.task);
+    }
+  }
+
+  private void unfileDay(Entry entry) {
+    if (entry.day == null) {
+      undated--;
+      return;
+    }
+    removeFromDay(byDay, entry);
+    if (!entry.completed) {
+      removeFromDay(notCompletedByDay, entry);
+    }
+  }
+
+  // Removes the task from its day, dropping the day once it has no tasks left
+  private static void removeFromDay(NavigableMap<Long, NavigableMap<Long, Task>> days, Entry entry) {
+    Map<Long, Task> bucket = days.get(entry.day);
+    if (bucket != null) {
+      bucket.remove(entry.position);
+      if (bucket.isEmpty()) {
+        days.remove(entry.day);
+      }
+    }
+  }
+
+  private static Long epochDay(Task task) {
+    return task.getDueDate() == null ? null : task.getDueDate().toEpochDay();
+  }
+
+  // Tasks without a priority are kept out of the priority buckets
+  private NavigableMap<Long, Task> bucketFor(Priority priority) {
+    return priority == null ? new TreeMap<>() : byPriority.get(priority);
+  }
+
+  private NavigableMap<Long, Task> completionBucket(boolean completed) {
+    return completed ? completedTasks : notCompletedTasks;
+  }
+
+  /**
+   * The values a task was last filed under.
+   */
+  private static class Entry {
+    private final Task task;
+    private final long position; // Position of the task in the list, which orders the buckets
+    private Priority priority;
+    private boolean completed;
+    private Long day; // Epoch day of the due date, or null if the task has none
+    private String description;
+
+    Entry(Task task, long position) {
+      this.task = task;
+      this.position = position;
+      this.description = task.getDescription();
+      this.priority = task.getPriority();
+      this.completed = task.isCompleted();
+      this.day = epochDay(task);
+    }
+  }
+}
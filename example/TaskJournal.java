@@ -0,0 +1,481 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the changes made to a TaskModel, so that a change can be
+ * persisted by writing a few bytes instead of rewriting the whole task file.
+ *
+ * <p>The journal is a TaskModelListener: once added to a model it records every add, remove,
+ * completion, date change and edit as a small binary entry. Entries are handed to a committer
+ * thread, which writes everything that has piled up since its last write in one go and then
+ * forces it to the disk once for the whole group. Under load many changes share a single
+ * write and sync; the future returned by append completes when the entry is durable.
+ *
+ * <p>On startup, replay applies the entries of an existing journal to a model. It must run
+ * before the journal is added as a listener, or the replayed changes would be recorded again.
+ *
+ * <p>File layout: an 8 byte header (magic, format version) followed by the entries. Each
+ * entry is its payload length (int), type (byte), payload and a CRC32 of type and payload
+ * (int). An entry that is cut short or fails its checksum marks the end of the journal; it
+ * can only be the tail of a write that was interrupted by a crash. Entries have no size limit
+ * other than the rest of the file, so any change the journal accepts is also read back.
+ *
+ * <p>Changes reported after the journal is closed or has failed are not recorded. The model
+ * has already made them by then, so the journal reports them instead of throwing into the
+ * code that changed the model, and sync returns a failed future from then on.
+ */
+public class TaskJournal implements TaskModelListener, Closeable {
+  private static final int MAGIC = 0x544B4A4E; // "TKJN"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+  private static final int MAX_PENDING = 8 << 20; // Bytes queued before appenders wait
+  private static final int NO_DATE = Integer.MIN_VALUE;
+  private static final byte NO_PRIORITY = -1;
+  private static final Priority[] PRIORITIES = Priority.values();
+
+  // Entry types
+  private static final byte ADD = 1;
+  private static final byte REMOVE = 2;
+  private static final byte COMPLETE = 3;
+  private static final byte DATE = 4;
+  private static final byte EDIT = 5;
+
+  private final SyncPolicy syncPolicy;
+  private final Thread committer;
+  private final CRC32 crc = new CRC32();
+
+  // Guarded by this
+  private FileChannel channel; // Segment that new entries go to
+  private FileChannel writing; // Segment the committer is writing to, or null when idle
+  private byte[] pending = new byte[4096]; // Encoded entries waiting for the committer
+  private int pendingSize;
+  private byte[] spare = new byte[4096]; // Buffer the committer swaps in while it writes
+  private CompletableFuture<Void> pendingCommit = new CompletableFuture<>();
+  private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null); // Being written
+  private boolean closed;
+  private IOException failure; // Set when a write fails; the journal accepts nothing after it
+  private IllegalStateException lost; // Why the first change that couldn't be recorded was lost
+
+  private TaskJournal(FileChannel channel, SyncPolicy syncPolicy) {
+    this.channel = channel;
+    this.syncPolicy = syncPolicy;
+    this.committer = new Thread(this::commitLoop, "task-journal-committer");
+    this.committer.setDaemon(true);
+    this.committer.start();
+  }
+
+  /**
+   * Opens a journal for appending, creating it if it doesn't exist, that forces every group
+   * of entries to the disk before reporting it as committed. A torn entry left at the end by
+   * a crash is cut off.
+   *
+   * @param file The journal file.
+   * @return The open journal.
+   * @throws IOException If the file can't be opened or isn't a task journal.
+   */
+  public static TaskJournal open(Path file) throws IOException {
+    return open(file, SyncPolicy.DATA);
+  }
+
+  /**
+   * Opens a journal for appending with the specified sync policy.
+   *
+   * @param file The journal file.
+   * @param syncPolicy How hard each group of entries is pushed to the disk.
+   * @return The open journal.
+   * @throws IOException If the file can't be opened or isn't a task journal.
+   */
+  public static TaskJournal open(Path file, SyncPolicy syncPolicy) throws IOException {
+    return new TaskJournal(openChannel(file, syncPolicy), syncPolicy);
+  }
+
+  // Opens a journal file positioned after its last valid entry, writing the header if needed
+  private static FileChannel openChannel(Path file, SyncPolicy syncPolicy) throws IOException {
+    long validEnd = Files.exists(file) ? scan(file, null) : 0;
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (validEnd == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        channel.truncate(0);
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+        validEnd = HEADER_SIZE;
+      } else {
+        channel.truncate(validEnd);
+      }
+      channel.position(validEnd);
+      if (syncPolicy != SyncPolicy.NONE) {
+        channel.force(true);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    return channel;
+  }
+
+  /**
+   * Switches the journal to a new segment file. Entries appended before the switch stay in
+   * the old segment and entries appended after it go to the new one. Together with a model
+   * snapshot taken at the same point this lets old segments be deleted once the snapshot is
+   * saved. The switch waits until the committer has taken the queued entries of the old
+   * segment, which takes at most one group commit.
+   *
+   * @param segment The new segment file.
+   * @throws IOException If the new segment can't be created.
+   */
+  public synchronized void rotate(Path segment) throws IOException {
+    while (pendingSize > 0 && failure == null && !closed) {
+      waitForCommitter();
+    }
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+    FileChannel old = channel;
+    channel = openChannel(segment, syncPolicy);
+    if (writing != old) {
+      closeQuietly(old); // Otherwise the committer closes it after its last write
+    }
+  }
+
+  private static void closeQuietly(FileChannel segment) {
+    try {
+      segment.close();
+    } catch (IOException e) {
+      // All of the segment's entries have been written
+    }
+  }
+
+  /**
+   * Applies the entries of a journal to a model, stopping at a torn tail. Does nothing if
+   * the file doesn't exist.
+   *
+   * @param file The journal file.
+   * @param model The model to apply the changes to.
+   * @return The number of entries applied.
+   * @throws IOException If the file can't be read or isn't a task journal.
+   */
+  public static long replay(Path file, TaskModel model) throws IOException {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    long[] applied = new long[1];
+    scan(file, (type, payload) -> {
+      apply(model, type, payload);
+      applied[0]++;
+    });
+    return applied[0];
+  }
+
+  @Override
+  public void taskAdded(Task task) {
+    append(ADD, task);
+  }
+
+  @Override
+  public void taskRemoved(int taskId) {
+    append(REMOVE, taskId);
+  }
+
+  @Override
+  public void taskCompleted(int taskId) {
+    append(COMPLETE, taskId);
+  }
+
+  @Override
+  public void taskDateChanged(int taskId, LocalDate newDate) {
+    byte[] payload = ByteBuffer.allocate(8).putInt(taskId).putInt(epochDay(newDate)).array();
+    append(DATE, payload);
+  }
+
+  @Override
+  public void taskUpdated(Task task) {
+    append(EDIT, task);
+  }
+
+  /**
+   * Gets a future that completes once every entry appended so far is durable.
+   *
+   * @return The future of the pending group commit, or a failed future if a change could not
+   *     be recorded.
+   */
+  public synchronized CompletableFuture<Void> sync() {
+    if (lost != null) {
+      return CompletableFuture.failedFuture(lost);
+    }
+    return pendingSize == 0 ? lastCommit : pendingCommit;
+  }
+
+  /**
+   * Commits the pending entries and closes the journal. Remove the journal from the model
+   * first, since changes reported after it is closed are not recorded.
+   *
+   * @throws IOException If the last entries can't be written.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      notifyAll();
+    }
+    try {
+      committer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    channel.close();
+    synchronized (this) {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  private CompletableFuture<Void> append(byte type, Task task) {
+    byte[] description = task.getDescription() == null
+        ? null : task.getDescription().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer payload = ByteBuffer.allocate(14 + (description == null ? 0 : description.length));
+    payload.putInt(task.getId());
+    payload.putInt(epochDay(task.getDate()));
+    payload.put((byte) (task.getCompleted() ? 1 : 0));
+    payload.put(task.getPriority() == null ? NO_PRIORITY : (byte) task.getPriority().ordinal());
+    payload.putInt(description == null ? -1 : description.length);
+    if (description != null) {
+      payload.put(description);
+    }
+    return append(type, payload.array());
+  }
+
+  private CompletableFuture<Void> append(byte type, int taskId) {
+    return append(type, ByteBuffer.allocate(4).putInt(taskId).array());
+  }
+
+  /**
+   * Queues an entry for the next group commit.
+   *
+   * @param type The entry type.
+   * @param payload The encoded entry.
+   * @return A future that completes when the entry is durable, or a failed future if the
+   *     journal is closed or has failed.
+   */
+  private synchronized CompletableFuture<Void> append(byte type, byte[] payload) {
+    while (pendingSize > MAX_PENDING && !closed && failure == null) {
+      waitForCommitter(); // Back pressure when the disk can't keep up
+    }
+    if (closed || failure != null) {
+      // The model has already changed, so throwing would only leave the caller half done
+      IllegalStateException e = closed
+          ? new IllegalStateException("Journal is closed, changes are no longer recorded")
+          : new IllegalStateException("Journal failed, changes are no longer recorded", failure);
+      if (lost == null) {
+        lost = e;
+        System.out.println(e.getMessage());
+      }
+      return CompletableFuture.failedFuture(e);
+    }
+    int size = 9 + payload.length;
+    if (pendingSize + size > pending.length) {
+      pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + size));
+    }
+    ByteBuffer entry = ByteBuffer.wrap(pending, pendingSize, size);
+    entry.putInt(payload.length).put(type).put(payload);
+    crc.reset();
+    crc.update(pending, pendingSize + 4, 1 + payload.length);
+    entry.putInt((int) crc.getValue());
+    pendingSize += size;
+    notifyAll();
+    return pendingCommit;
+  }
+
+  // Writes and syncs whatever has been appended since the last commit, until closed
+  private void commitLoop() {
+    while (true) {
+      byte[] batch;
+      int batchSize;
+      CompletableFuture<Void> commit;
+      FileChannel target;
+      synchronized (this) {
+        while (pendingSize == 0 && !closed) {
+          waitForCommitter();
+        }
+        if (pendingSize == 0 || failure != null) {
+          pendingCommit.complete(null);
+          return;
+        }
+        batch = pending;
+        batchSize = pendingSize;
+        target = channel;
+        writing = target;
+        commit = pendingCommit;
+        lastCommit = commit;
+        pending = spare;
+        pendingSize = 0;
+        pendingCommit = new CompletableFuture<>();
+        notifyAll(); // Wakes appenders waiting for room
+      }
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(batch, 0, batchSize);
+        while (buffer.hasRemaining()) {
+          target.write(buffer);
+        }
+        syncPolicy.force(target);
+        commit.complete(null);
+      } catch (IOException e) {
+        synchronized (this) {
+          failure = e;
+          pendingCommit.completeExceptionally(e);
+          notifyAll();
+        }
+        commit.completeExceptionally(e);
+        return;
+      }
+      boolean retired;
+      synchronized (this) {
+        spare = batch;
+        writing = null;
+        retired = target != channel;
+      }
+      if (retired) {
+        closeQuietly(target); // Wrote the last batch of a segment the journal rotated away from
+      }
+    }
+  }
+
+  private void waitForCommitter() {
+    try {
+      wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the journal", e);
+    }
+  }
+
+  /**
+   * Receives the entries read from a journal.
+   */
+  private interface EntryHandler {
+    void entry(byte type, ByteBuffer payload);
+  }
+
+  /**
+   * Reads the entries of a journal, stopping at the first torn or corrupt entry.
+   *
+   * @param file The journal file.
+   * @param handler Receives each valid entry, or null to only find the valid end.
+   * @return The number of bytes up to the end of the last valid entry.
+   * @throws IOException If the file can't be read or isn't a task journal.
+   */
+  private static long scan(Path file, EntryHandler handler) throws IOException {
+    long fileSize = Files.size(file);
+    try (InputStream in = Files.newInputStream(file);
+         DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16))) {
+      try {
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+          throw new IOException(file + " is not a task journal");
+        }
+      } catch (EOFException e) {
+        return 0; // Crashed while writing the header, so no entries were committed
+      }
+      long validEnd = HEADER_SIZE;
+      CRC32 checksum = new CRC32();
+      byte[] body = new byte[256];
+      while (true) {
+        try {
+          int length = data.readInt();
+          if (length < 0 || length > fileSize - validEnd - 9) {
+            return validEnd; // Cut short, or a corrupt length
+          }
+          if (body.length < length + 1) {
+            body = new byte[length + 1];
+          }
+          data.readFully(body, 0, length + 1);
+          int stored = data.readInt();
+          checksum.reset();
+          checksum.update(body, 0, length + 1);
+          if (stored != (int) checksum.getValue()) {
+            return validEnd;
+          }
+          if (handler != null) {
+            handler.entry(body[0], ByteBuffer.wrap(body, 1, length).slice());
+          }
+          validEnd += 9 + length;
+        } catch (EOFException e) {
+          return validEnd;
+        }
+      }
+    }
+  }
+
+  // Applies one entry to the model
+  private static void apply(TaskModel model, byte type, ByteBuffer payload) {
+    int taskId = payload.getInt();
+    switch (type) {
+      case ADD:
+      case EDIT:
+        LocalDate date = date(payload.getInt());
+        boolean completed = payload.get() != 0;
+        byte priority = payload.get();
+        int length = payload.getInt();
+        String description = null;
+        if (length >= 0) {
+          byte[] bytes = new byte[length];
+          payload.get(bytes);
+          description = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Priority taskPriority = priority == NO_PRIORITY ? null : PRIORITIES[priority];
+        Task existing = model.getTaskById(taskId);
+        if (existing == null) {
+          model.addTask(new Task(taskId, description, date, completed, taskPriority));
+        } else {
+          existing.setDescription(description);
+          existing.setDate(date);
+          existing.setCompleted(completed);
+          existing.setPriority(taskPriority);
+          model.updateTask(existing);
+        }
+        break;
+      case REMOVE:
+        model.removeTask(taskId);
+        break;
+      case COMPLETE:
+        model.markTaskCompleted(taskId);
+        break;
+      case DATE:
+        model.changeTaskDate(taskId, date(payload.getInt()));
+        break;
+      default:
+        // Entry type from a newer version; skip it
+        break;
+    }
+  }
+
+  private static int epochDay(LocalDate date) {
+    return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+  }
+
+  private static LocalDate date(int epochDay) {
+    return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+}
@@ -1,37 +1,47 @@
 package org.example;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
-// TaskList to implement TaskListADT and incorporate recursion
+// TaskList to implement TaskListADT as a singly linked list
 public class TaskList implements TaskListADT {
   private Node head; // Reference to the first node in the linked list
+  private Node tail; // Reference to the last node in the linked list
+  private int maxId = Integer.MIN_VALUE; // No task in the list has a larger ID
 
   // Constructor to initialize the linked list with a null head
   public TaskList() {
     this.head = null;
+    this.tail = null;
   }
 
   /**
    * Adds a new task to the end of the linked list.
+   * A task with the same ID as an existing task replaces it in place. New tasks have larger
+   * IDs than every task in the list, so they are appended without walking it.
    *
    * @param task The task to add.
    */
   public void addTask(Task task) {
+    if (task.getId() <= maxId) {
+      Node current = head;
+      while (current != null) {
+        if (current.getTask().getId() == task.getId()) {
+          current.setTask(task);
+          return;
+        }
+        current = current.getNext();
+      }
+    }
+    maxId = Math.max(maxId, task.getId());
     Node newNode = new Node(task);
     if (head == null) {
       head = newNode;
     } else {
-      Node current = head;
-      while (current.getNext() != null) {
-        current = current.getNext();
-      }
-      current.setNext(newNode);
+      tail.setNext(newNode);
     }
+    tail = newNode;
   }
 
   /**
@@ -49,40 +59,6 @@ public class TaskList implements TaskListADT {
     return allTasks;
   }
 
-  /**
-   * Loads tasks from a CSV file into the list.
-   *
-   * @param filename The name of the CSV file to load tasks from.
-   */
-  public void loadFromCSV(String filename) {
-    try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        String[] attributes = line.split(",");
-        // Create task object from CSV attributes and add to the list
-        addTask(createTaskFromCSV(attributes));
-      }
-    } catch (IOException e) {
-      System.out.println("Error loading tasks from CSV: " + e.getMessage());
-    }
-  }
-
-  /**
-   * Loads tasks from a CSV file into the list.
-   *
-   * @param attributes The name of the CSV file to load tasks from.
-   */
-  private Task createTaskFromCSV(String[] attributes) {
-    // Parse attributes and create a Task object
-    String description = attributes[1];
-    LocalDate date = LocalDate.parse(attributes[2]);
-    boolean completed = Boolean.parseBoolean(attributes[3]);
-    String priorityString = attributes[4]; // Assuming priority is a string representation
-    Priority priority = Priority.valueOf(priorityString);
-
-    return new Task(description, date, completed, priority); // Assuming id is set internally in Task
-  }
-
   /**
    * Marks a task with the specified ID as completed.
    *
@@ -122,53 +98,56 @@ public class TaskList implements TaskListADT {
 
   /**
    * Removes a task with the specified ID from the list.
+   * Walks the list iteratively, so the stack use does not grow with the list size.
    *
    * @param taskId The ID of the task to remove.
+   * @return True if the list held the task.
    */
-  public void removeTask(int taskId) {
-    head = removeTaskRecursive(head, taskId);
-  }
-
-  // Recursive helper method to remove task
-  private Node removeTaskRecursive(Node current, int taskId) {
+  public boolean removeTask(int taskId) {
+    Node previous = null;
+    Node current = head;
+    while (current != null && current.getTask().getId() != taskId) {
+      previous = current;
+      current = current.getNext();
+    }
     if (current == null) {
-      return null; // Base case: task not found
+      return false; // Task not found
+    }
+    // Unlink the found node from its predecessor (or the head)
+    if (previous == null) {
+      head = current.getNext();
+    } else {
+      previous.setNext(current.getNext());
     }
-    if (current.getTask().getId() == taskId) {
-      return current.getNext(); // Found task, remove it
+    if (current == tail) {
+      tail = previous;
     }
-    // Recur for the rest of the list
-    current.setNext(removeTaskRecursive(current.getNext(), taskId));
-    return current;
+    return true;
   }
 
   /**
    * Retrieves a task by its ID.
+   * Walks the list iteratively, so the stack use does not grow with the list size.
    *
    * @param taskId The ID of the task to retrieve.
    * @return The task with the specified ID, or null if not found.
    */
   public Task getTaskById(int taskId) {
-    return getTaskByIdRecursive(head, taskId);
-  }
-
-  // Recursive helper method to get task by ID
-  private Task getTaskByIdRecursive(Node current, int taskId) {
-    if (current == null) {
-      return null; // Base case: task not found
-    }
-    if (current.getTask().getId() == taskId) {
-      return current.getTask(); // Found task
+    Node current = head;
+    while (current != null) {
+      if (current.getTask().getId() == taskId) {
+        return current.getTask(); // Found task
+      }
+      current = current.getNext();
     }
-    // Recursion for the rest of the list
-    return getTaskByIdRecursive(current.getNext(), taskId);
+    return null; // Task not found
   }
 
   /**
    * Inner class representing a node in the linked list.
    */
   private static class Node {
-    private final Task task; // Task object
+    private Task task; // Task object
     private Node next; // Reference to the next node
 
     /**
@@ -195,6 +174,11 @@ public class TaskList implements TaskListADT {
     public Task getTask() {
       return task;
     }
+
+    // Setter method for the task
+    public void setTask(Task task) {
+      this.task = task;
+    }
   }
 
 }
@@ -1,8 +1,78 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 // Define the TaskListADT interface
 public interface TaskListADT {
   void addTask(Task task);
-  void removeTask(int taskId);
+  // Removes the task with the given ID and returns whether the list held it
+  boolean removeTask(int taskId);
   Task getTaskById(int taskId);
-}
\ No newline at end of file
+  List<Task> getAllTasks();
+  void markTaskCompleted(int taskId);
+  void changeTaskDate(int taskId, LocalDate newDate);
+
+  // Loads tasks from a CSV file into the list and returns the rows that could not be read
+  default List<CsvRowError> loadFromCSV(String filename) throws IOException {
+    TaskCsvReader.Result result = new TaskCsvReader().read(Paths.get(filename));
+    addLoadedTasks(result.getTasks());
+    return result.getErrors();
+  }
+
+  // Adds tasks read from a file and returns the instances the list keeps for them. A task
+  // keeps the ID stored in the file unless another task in the list already has it, in which
+  // case it gets a new ID.
+  default List<Task> addLoadedTasks(List<Task> tasks) {
+    List<Task> added = new ArrayList<>(tasks.size());
+    Set<Integer> ids = new HashSet<>();
+    for (Task task : getAllTasks()) {
+      ids.add(task.getId());
+    }
+    for (Task task : tasks) {
+      if (!ids.add(task.getId())) {
+        task = new Task(task.getDescription(), task.getDate(), task.getCompleted(), task.getPriority());
+        ids.add(task.getId());
+      }
+      added.add(addTaskAndGet(task));
+    }
+    return added;
+  }
+
+  // Adds tasks in one call and returns the instances the list keeps for them, in order. As
+  // with addTask, a task with the ID of a task in the list replaces it. Lists override this
+  // to make room for all the tasks up front instead of growing as they go.
+  default List<Task> addAll(Collection<Task> tasks) {
+    List<Task> added = new ArrayList<>(tasks.size());
+    for (Task task : tasks) {
+      added.add(addTaskAndGet(task));
+    }
+    return added;
+  }
+
+  // Adds the tasks of a stream in one call; the stream is collected first, so that the list
+  // knows how many tasks to make room for
+  default List<Task> addAll(Stream<Task> tasks) {
+    return addAll(tasks.collect(Collectors.toList()));
+  }
+
+  // Adds a task and returns the instance the list keeps for it, which is a view of the
+  // stored values for lists that don't keep Task objects
+  default Task addTaskAndGet(Task task) {
+    addTask(task);
+    return task;
+  }
+
+  // Called after a task handed out by the list has been changed through its setters, for
+  // lists that must hold on to changed tasks instead of re-reading them from storage
+  default void updateTask(Task task) {
+  }
+}
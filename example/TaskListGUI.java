@@ -5,6 +5,13 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.swing.*;
 
 /**
@@ -17,6 +24,8 @@ public class TaskListGUI extends JFrame {
   private final EventController eventController; // Declare EventController
   private final NonEventController nonEventController; // Declare NonEventController
   private ConfettiPanel confettiPanel;
+  private TaskSnapshot lastSnapshot; // Snapshot the "View All Tasks" text was rendered from
+  private String lastAllTasksText; // Rendered text of lastSnapshot
 
   /**
    * Constructs a TaskListGUI object with the specified controllers.
@@ -100,14 +109,18 @@ public class TaskListGUI extends JFrame {
     JButton viewAllTasksButton = new JButton("View All Tasks");
     viewAllTasksButton.setPreferredSize(new Dimension(150, 75));
     viewAllTasksButton.addActionListener(e -> {
-      List<Task> allTasks = taskController.getAllTasks();
-      StringBuilder tasksText = new StringBuilder();
-      for (Task task : allTasks) {
-        tasksText.append(task.toString()).append("\n");
-        tasksText.append("\n");
+      // Only render the tasks again if the model changed since they were last shown
+      if (!taskController.isCurrent(lastSnapshot)) {
+        lastSnapshot = taskController.getTaskSnapshot();
+        StringBuilder tasksText = new StringBuilder();
+        for (Task task : lastSnapshot) {
+          tasksText.append(task.toString()).append("\n");
+          tasksText.append("\n");
+        }
+        lastAllTasksText = tasksText.toString();
       }
       // Update a JTextArea with the list of tasks
-      JTextArea tasksTextArea = new JTextArea(tasksText.toString());
+      JTextArea tasksTextArea = new JTextArea(lastAllTasksText);
       JScrollPane scrollPane = new JScrollPane(tasksTextArea);
       JOptionPane.showMessageDialog(TaskListGUI.this, scrollPane, "All Tasks", JOptionPane.INFORMATION_MESSAGE);
     });
@@ -120,7 +133,10 @@ public class TaskListGUI extends JFrame {
       int result = fileChooser.showSaveDialog(TaskListGUI.this);
       if (result == JFileChooser.APPROVE_OPTION) {
         String filename = fileChooser.getSelectedFile().getPath();
-        taskController.saveTaskListToCSV(filename);
+        // Save in the background so the window stays responsive for large lists
+        runWithProgress("Saving Tasks", progress -> taskController.saveTaskListToCSVAsync(filename, progress),
+            done -> JOptionPane.showMessageDialog(TaskListGUI.this, "Task list saved to CSV file: " + filename,
+                "Success", JOptionPane.INFORMATION_MESSAGE));
       }
     });
     rightPanel.add(saveButton);
@@ -132,7 +148,16 @@ public class TaskListGUI extends JFrame {
       int result = fileChooser.showOpenDialog(TaskListGUI.this);
       if (result == JFileChooser.APPROVE_OPTION) {
         String filename = fileChooser.getSelectedFile().getPath();
-        taskController.loadTaskListFromCSV(filename);
+        runWithProgress("Loading Tasks", progress -> taskController.loadTaskListFromCSVAsync(filename, progress),
+            errors -> {
+              if (errors.isEmpty()) {
+                JOptionPane.showMessageDialog(TaskListGUI.this, "Task list loaded from CSV file: " + filename,
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+              } else {
+                JOptionPane.showMessageDialog(TaskListGUI.this, "Task list loaded from CSV file: " + filename + "\n"
+                    + CsvRowError.summarize(errors), "Loaded with errors", JOptionPane.WARNING_MESSAGE);
+              }
+            });
       }
     });
     rightPanel.add(loadButton);
@@ -146,6 +171,84 @@ public class TaskListGUI extends JFrame {
     setVisible(true);
   }
 
+  /**
+   * Runs a save or load in the background while a dialog shows its progress and offers to
+   * cancel it. The dialog doesn't block the rest of the window.
+   *
+   * @param title     The title of the progress dialog.
+   * @param operation Starts the operation with a progress listener and returns its future.
+   * @param onSuccess Called on the event thread with the result once the operation succeeds.
+   */
+  private <T> void runWithProgress(String title, Function<TaskProgressListener, CompletableFuture<T>> operation,
+      Consumer<T> onSuccess) {
+    JDialog dialog = new JDialog(this, title, false);
+    dialog.setLayout(new BorderLayout(5, 5));
+    JProgressBar progressBar = new JProgressBar(0, 1000);
+    progressBar.setIndeterminate(true);
+    progressBar.setStringPainted(true);
+    progressBar.setString("Starting...");
+    JButton cancelButton = new JButton("Cancel");
+    dialog.add(progressBar, BorderLayout.CENTER);
+    dialog.add(cancelButton, BorderLayout.SOUTH);
+    dialog.setSize(350, 100);
+    dialog.setLocationRelativeTo(this);
+    dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+    AtomicReference<CompletableFuture<T>> running = new AtomicReference<>();
+    AtomicBoolean cancelRequested = new AtomicBoolean();
+    SwingWorker<T, long[]> worker = new SwingWorker<>() {
+      @Override
+      protected T doInBackground() throws Exception {
+        CompletableFuture<T> future = operation.apply(
+            (rows, totalRows, bytes, totalBytes) -> publish(new long[] {rows, totalRows, bytes, totalBytes}));
+        running.set(future);
+        if (cancelRequested.get()) {
+          future.cancel(false); // Cancel was pressed before the operation had started
+        }
+        return future.get();
+      }
+
+      @Override
+      protected void process(List<long[]> updates) {
+        long[] latest = updates.get(updates.size() - 1); // rows, totalRows, bytes, totalBytes
+        double fraction = latest[3] > 0 ? (double) latest[2] / latest[3]
+            : latest[1] > 0 ? (double) latest[0] / latest[1] : -1;
+        progressBar.setIndeterminate(fraction < 0);
+        if (fraction >= 0) {
+          progressBar.setValue((int) (Math.min(fraction, 1) * 1000));
+        }
+        progressBar.setString(String.format("%,d tasks, %,.1f MB", latest[0], latest[2] / 1e6));
+      }
+
+      @Override
+      protected void done() {
+        dialog.dispose();
+        try {
+          onSuccess.accept(get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof CancellationException) {
+            JOptionPane.showMessageDialog(TaskListGUI.this, title + " cancelled", "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+          } else {
+            JOptionPane.showMessageDialog(TaskListGUI.this, "Error: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+          }
+        } catch (InterruptedException | CancellationException e) {
+          JOptionPane.showMessageDialog(TaskListGUI.this, title + " cancelled", "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+        }
+      }
+    };
+    cancelButton.addActionListener(e -> {
+      cancelButton.setEnabled(false);
+      progressBar.setString("Cancelling...");
+      cancelRequested.set(true);
+      CompletableFuture<T> future = running.get();
+      if (future != null) {
+        future.cancel(false); // The operation stops at its next progress report
+      }
+    });
+    worker.execute();
+    dialog.setVisible(true);
+  }
+
   private void showAddTaskDialog() {
     JDialog dialog = new JDialog(this, "Add Task", true);
     dialog.setLayout(new BorderLayout());
@@ -277,7 +380,7 @@ public class TaskListGUI extends JFrame {
   private void showFilterOptionsDialog() {
     // Create a dialog box or dropdown menu with filter options
     // For example, using JOptionPane:
-    String[] options = {"Filter by Date", "Filter by Priority", "Filter by Completion"};
+    String[] options = {"Combined Filter", "Filter by Date", "Filter by Priority", "Filter by Completion", "Overdue Tasks"};
     String selectedOption = (String) JOptionPane.showInputDialog(
         TaskListGUI.this,
         "Choose a filter option:",
@@ -290,6 +393,10 @@ public class TaskListGUI extends JFrame {
     // Apply the selected filter
     if (selectedOption != null) {
       switch (selectedOption) {
+        case "Combined Filter":
+          // Show a dialog that combines every criterion in one query
+          showCombinedFilterDialog();
+          break;
         case "Filter by Date":
           // Show date filter dialog
           showDateFilterDialog(); // Add this method call
@@ -302,11 +409,92 @@ public class TaskListGUI extends JFrame {
           // Show completion filter dialog
           showCompletionFilterDialog();
           break;
+        case "Overdue Tasks":
+          // Show tasks that are past their due date and not completed
+          displayFilteredTasks(taskController.getOverdueTasks(LocalDate::now));
+          break;
         default:
           break;
       }
     }
   }
+  // Method to show a filter dialog that combines priority, status, due dates, text and sort order
+  private void showCombinedFilterDialog() {
+    JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+    JComboBox<String> priorityComboBox = new JComboBox<>(new String[] {"Any", "Red", "Yellow", "Green"});
+    JComboBox<String> statusComboBox = new JComboBox<>(new String[] {"Any", "Completed", "Not Completed", "Overdue"});
+    JTextField fromField = new JTextField();
+    JTextField toField = new JTextField();
+    JTextField textField = new JTextField();
+    JComboBox<String> sortComboBox = new JComboBox<>(new String[] {"None", "Due Date", "Priority", "Priority, Then Due Date", "Description", "ID"});
+    TaskQuery.Sort[] sorts = {null, TaskQuery.Sort.DUE_DATE, TaskQuery.Sort.PRIORITY, TaskQuery.Sort.PRIORITY_DUE_DATE,
+        TaskQuery.Sort.DESCRIPTION, TaskQuery.Sort.ID};
+    JTextField limitField = new JTextField();
+    panel.add(new JLabel("Priority:"));
+    panel.add(priorityComboBox);
+    panel.add(new JLabel("Status:"));
+    panel.add(statusComboBox);
+    panel.add(new JLabel("Due From (MM/DD/YYYY):"));
+    panel.add(fromField);
+    panel.add(new JLabel("Due To (MM/DD/YYYY):"));
+    panel.add(toField);
+    panel.add(new JLabel("Description Contains:"));
+    panel.add(textField);
+    panel.add(new JLabel("Sort By:"));
+    panel.add(sortComboBox);
+    panel.add(new JLabel("Tasks Per Page:"));
+    panel.add(limitField);
+
+    int result = JOptionPane.showConfirmDialog(TaskListGUI.this, panel, "Combined Filter",
+        JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+    if (result != JOptionPane.OK_OPTION) {
+      return;
+    }
+    try {
+      DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+      TaskQuery.Builder query = TaskQuery.builder();
+      if (priorityComboBox.getSelectedIndex() > 0) {
+        query.priority(Priority.valueOf(((String) priorityComboBox.getSelectedItem()).toUpperCase()));
+      }
+      if (!fromField.getText().trim().isEmpty()) {
+        query.dueOnOrAfter(LocalDate.parse(fromField.getText().trim(), formatter));
+      }
+      if (!toField.getText().trim().isEmpty()) {
+        query.dueOnOrBefore(LocalDate.parse(toField.getText().trim(), formatter));
+      }
+      switch ((String) statusComboBox.getSelectedItem()) {
+        case "Completed":
+          query.completed(true);
+          break;
+        case "Not Completed":
+          query.completed(false);
+          break;
+        case "Overdue":
+          query.overdue(LocalDate.now());
+          break;
+        default:
+          break;
+      }
+      query.descriptionContains(textField.getText().trim());
+      if (sortComboBox.getSelectedIndex() > 0) {
+        query.sortBy(sorts[sortComboBox.getSelectedIndex()]);
+      }
+      if (!limitField.getText().trim().isEmpty()) {
+        int pageSize = Integer.parseInt(limitField.getText().trim());
+        if (pageSize < 1) {
+          JOptionPane.showMessageDialog(TaskListGUI.this, "Invalid page size. Please enter a number of at least 1", "Error", JOptionPane.ERROR_MESSAGE);
+          return;
+        }
+        query.limit(pageSize);
+      }
+      displayQueryResults(query.build());
+    } catch (DateTimeParseException ex) {
+      JOptionPane.showMessageDialog(TaskListGUI.this, "Invalid date format. Please use MM/DD/YYYY", "Error", JOptionPane.ERROR_MESSAGE);
+    } catch (NumberFormatException ex) {
+      JOptionPane.showMessageDialog(TaskListGUI.this, "Invalid page size. Please enter a number of at least 1", "Error", JOptionPane.ERROR_MESSAGE);
+    }
+  }
+
   // Method to show date filter dialog
   private void showDateFilterDialog() {
     // Implement date filter dialog
@@ -372,17 +560,46 @@ public class TaskListGUI extends JFrame {
     }
   }
 
-  // Method to display the filtered tasks
+  // Method to display the filtered tasks, one page at a time
   private void displayFilteredTasks(List<Task> tasks) {
+    int pageSize = TaskPage.DEFAULT_SIZE;
+    int from = 0;
+    for (int number = 1; ; number++) {
+      int to = Math.min(tasks.size(), from + pageSize);
+      if (!showTaskPage(tasks.subList(from, to), number, to < tasks.size())) {
+        return;
+      }
+      from = to;
+    }
+  }
+
+  // Method to display the results of a query, fetching each page only when it is shown
+  private void displayQueryResults(TaskQuery query) {
+    TaskPage page = taskController.queryPage(query);
+    for (int number = 1; showTaskPage(page.getTasks(), number, page.hasNext()); number++) {
+      page = taskController.queryPage(page.nextPage());
+    }
+  }
+
+  // Shows one page of tasks, returning true if the next page was asked for
+  private boolean showTaskPage(List<Task> tasks, int number, boolean hasNext) {
     StringBuilder tasksText = new StringBuilder();
     for (Task task : tasks) {
       tasksText.append(task.toString()).append("\n");
       tasksText.append("\n");
     }
-    // Update a JTextArea with the list of tasks
+    // Update a JTextArea with the tasks of the page
     JTextArea tasksTextArea = new JTextArea(tasksText.toString());
     JScrollPane scrollPane = new JScrollPane(tasksTextArea);
-    JOptionPane.showMessageDialog(TaskListGUI.this, scrollPane, "Filtered Tasks", JOptionPane.INFORMATION_MESSAGE);
+    String title = "Filtered Tasks (Page " + number + ")";
+    if (!hasNext) {
+      JOptionPane.showMessageDialog(TaskListGUI.this, scrollPane, title, JOptionPane.INFORMATION_MESSAGE);
+      return false;
+    }
+    Object[] options = {"Next Page", "Close"};
+    int choice = JOptionPane.showOptionDialog(TaskListGUI.this, scrollPane, title, JOptionPane.DEFAULT_OPTION,
+        JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+    return choice == 0;
   }
 
   // Method to start the confetti animation
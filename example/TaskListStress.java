@@ -0,0 +1,119 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+/**
+ * Checks that the linked TaskList looks up and removes tasks at any size without running out
+ * of stack. It builds a list of 10,000,000 tasks by default and works on it from a thread with
+ * a small stack, so a recursive walk would overflow long before the end of the list.
+ * Run with the number of tasks as the first argument, for example
+ * {@code java -Xmx4g org.example.TaskListStress 10000000}.
+ */
+public class TaskListStress {
+  private static final long STACK_SIZE = 256 * 1024; // Far too small for one frame per node
+
+  /**
+   * Builds the list, then looks up and removes tasks across it and prints the timings.
+   *
+   * @param args The number of tasks in the list (optional).
+   * @throws InterruptedException If interrupted while waiting for the stress thread.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+    Throwable[] failure = new Throwable[1];
+    Thread thread = new Thread(null, () -> {
+      try {
+        stress(taskCount);
+      } catch (Throwable e) {
+        failure[0] = e;
+      }
+    }, "task-list-stress", STACK_SIZE);
+    thread.start();
+    thread.join();
+    if (failure[0] != null) {
+      System.out.println("FAILED: " + failure[0]);
+      System.exit(1);
+    }
+    System.out.println("OK");
+  }
+
+  private static void stress(int taskCount) {
+    TaskList taskList = new TaskList();
+    LocalDate start = LocalDate.of(2024, 1, 1);
+    Priority[] priorities = Priority.values();
+    int[] ids = new int[taskCount];
+    long begin = System.nanoTime();
+    for (int i = 0; i < taskCount; i++) {
+      Task task = new Task("Task number " + i, start.plusDays(i % 365), false, priorities[i % priorities.length]);
+      ids[i] = task.getId();
+      taskList.addTask(task);
+    }
+    report("build", taskCount, begin);
+
+    // Lookups of the last task and of a missing ID walk the whole list
+    int last = ids[taskCount - 1];
+    int[] probes = {ids[0], ids[taskCount / 2], last, -1};
+    for (int probe : probes) {
+      taskList.getTaskById(probe); // Warm up, so the allocation count below is steady
+    }
+    Task[] found = new Task[probes.length];
+    // Reading the counter allocates too, so an empty span is measured first and left out
+    long counterCost = -allocatedBytes();
+    counterCost += allocatedBytes();
+    long allocatedBefore = allocatedBytes();
+    begin = System.nanoTime();
+    for (int i = 0; i < probes.length; i++) {
+      found[i] = taskList.getTaskById(probes[i]);
+    }
+    long allocated = allocatedBytes() - allocatedBefore - counterCost;
+    report("getTaskById", probes.length, begin);
+    for (int i = 0; i < probes.length; i++) {
+      boolean right = probes[i] == -1 ? found[i] == null : found[i] != null && found[i].getId() == probes[i];
+      check(right, "lookup of " + probes[i]);
+    }
+    if (allocatedBefore >= 0) {
+      System.out.printf("  %-18s %,15d bytes allocated by %d lookups%n", "", allocated, probes.length);
+      check(allocated == 0, "lookups allocate nothing, got " + allocated + " bytes");
+    } else {
+      System.out.println("  allocation not checked, the JVM doesn't count allocated bytes");
+    }
+
+    // Removing near the end walks almost the whole list; then the tail, the head and a missing ID
+    begin = System.nanoTime();
+    taskList.removeTask(ids[taskCount - 2]);
+    taskList.removeTask(last);
+    taskList.removeTask(ids[0]);
+    taskList.removeTask(-1);
+    report("removeTask", 4, begin);
+    check(taskList.getTaskById(last) == null && taskList.getTaskById(ids[0]) == null, "removed tasks are gone");
+    check(taskList.getTaskById(ids[taskCount - 3]) != null, "tasks before the removed ones remain");
+
+    // The tail must still be right after removing it, so appends land at the end
+    Task appended = new Task("Appended", start, false, Priority.RED);
+    taskList.addTask(appended);
+    check(taskList.getTaskById(appended.getId()) == appended, "append after removing the tail");
+    check(taskList.getAllTasks().size() == taskCount - 2, "size after removals and an append");
+  }
+
+  private static void check(boolean condition, String what) {
+    if (!condition) {
+      throw new IllegalStateException("Check failed: " + what);
+    }
+  }
+
+  private static void report(String operation, int count, long begin) {
+    long elapsed = System.nanoTime() - begin;
+    System.out.printf("  %-18s %,15d ops  %,12.1f ms  %,12.1f us/op%n", operation, count, elapsed / 1e6,
+        elapsed / 1e3 / count);
+  }
+
+  // Bytes allocated by the current thread so far, or -1 if the JVM doesn't count them
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+}
@@ -1,24 +1,77 @@
 package org.example;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The TaskModel class represents the model component in the MVC architecture for task management.
  * It provides methods to interact with tasks, such as adding, retrieving, and modifying tasks.
  */
 public class TaskModel implements ITaskList {
-  private final TaskList taskList;
+  // Runs background saves and loads; the threads don't keep the application alive
+  private static final Executor FILE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "task-file-io");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   /**
-   * Initializes a TaskModel with the current date.
+   * The number of candidates from which a query scan is split across the query pool,
+   * unless setQueryParallelism says otherwise. Below it, handing out the work costs more
+   * than it saves.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+  private final TaskListADT taskList;
+  private final TaskIndex index; // Priority, completion and date indexes over taskList
+  private boolean indexBuilt; // False until the indexes are first needed
+  private long version; // Incremented by every change to the model
+  private TaskSnapshot snapshot; // Snapshot of the latest version, shared until the next change
+  private final List<TaskModelListener> listeners = new CopyOnWriteArrayList<>();
+  private final TaskChanges changes = new TaskChanges(); // Tasks changed since the last save
+  private volatile ForkJoinPool queryPool = ForkJoinPool.commonPool(); // Runs large query scans
+  private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+  /**
+   * Initializes a TaskModel with the current date, backed by a linked TaskList.
    *
    * @param currentDate The current date.
    */
   public TaskModel(LocalDate currentDate) {
-    this.taskList = new TaskList();
+    this(currentDate, new TaskList());
+  }
+
+  /**
+   * Initializes a TaskModel with the current date and the task list implementation to store
+   * the tasks in, for example an IndexedTaskList for large lists. A task list that already
+   * holds tasks, such as a reopened MappedTaskList, is only indexed once a filter needs it.
+   *
+   * @param currentDate The current date.
+   * @param taskList The task list to store the tasks in.
+   */
+  public TaskModel(LocalDate currentDate, TaskListADT taskList) {
+    this.taskList = taskList;
+    this.index = new TaskIndex();
+    this.indexBuilt = false;
+    this.listeners.add(changes);
   }
 
   /**
@@ -27,41 +80,313 @@ public class TaskModel implements ITaskList {
    * @param task The task to add.
    */
   public void addTask(Task task) {
-    taskList.addTask(task);
+    Task stored = tracked(taskList.addTaskAndGet(task));
+    if (indexBuilt) {
+      index.add(stored);
+    }
+    version++;
+    for (TaskModelListener listener : listeners) {
+      listener.taskAdded(stored);
+    }
+  }
+
+  /**
+   * Adds many tasks to the model in one step, which is much faster than calling addTask for
+   * each of them. The task list makes room for all of them first, and the secondary indexes
+   * are rebuilt in one pass when next needed rather than updated per task. As with addTask,
+   * a task with the ID of a task in the model replaces it.
+   *
+   * @param tasks The tasks to add.
+   */
+  public void addAll(Collection<Task> tasks) {
+    addBulk(tasks, false, false);
   }
 
   /**
-   * Retrieves all tasks from the model.
+   * Adds the tasks of a stream to the model in one step. The stream is consumed before the
+   * model is changed, so the tasks become visible all at once.
+   *
+   * @param tasks The tasks to add.
+   */
+  public void addAll(Stream<Task> tasks) {
+    addAll(tasks.collect(Collectors.toList()));
+  }
+
+  /**
+   * Creates a loader that collects tasks and adds them to this model in one step.
+   *
+   * @return The loader.
+   */
+  public TaskBulkLoader bulkLoader() {
+    return new TaskBulkLoader(this);
+  }
+
+  /**
+   * Registers a listener that is told about every change to the model, in the order the
+   * changes are made. Listeners are called while the change is being made, so they must
+   * not block or change the model themselves.
+   *
+   * @param listener The listener to add.
+   */
+  public void addListener(TaskModelListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener added with addListener.
+   *
+   * @param listener The listener to remove.
+   */
+  public void removeListener(TaskModelListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Retrieves all tasks from the model as a read-only list backed by the current snapshot.
    *
    * @return A list containing all tasks.
    */
   public List<Task> getAllTasks() {
-    return taskList.getAllTasks();
+    return snapshot().asList();
+  }
+
+  /**
+   * Gets a snapshot of the tasks at the current version of the model. The snapshot is
+   * only rebuilt after the model has changed, so repeated calls share the same snapshot.
+   *
+   * @return The snapshot of the current tasks.
+   */
+  public TaskSnapshot snapshot() {
+    return currentSnapshot();
+  }
+
+  /**
+   * Runs an action and takes a snapshot with no change to the model in between, for example
+   * to start a new journal segment exactly where a checkpoint begins.
+   *
+   * @param action The action to run before the snapshot is taken.
+   * @return The snapshot taken right after the action.
+   */
+  TaskSnapshot snapshotWith(Runnable action) {
+    action.run();
+    return currentSnapshot();
+  }
+
+  /**
+   * Copies the current values of a task into a new Task that the model doesn't share, for
+   * writing tasks out while the model keeps changing.
+   *
+   * @param task A task of the model, possibly taken from an older snapshot.
+   * @return The copy, or null if the task has been removed from a list that doesn't keep
+   *     Task objects.
+   */
+  Task detachedCopy(Task task) {
+    try {
+      return copyOf(task);
+    } catch (IllegalStateException e) {
+      return null; // A view of a task that is no longer in the list
+    }
+  }
+
+  private static Task copyOf(Task task) {
+    return new Task(task.getId(), task.getDescription(), task.getDate(), task.getCompleted(), task.getPriority());
+  }
+
+  private TaskSnapshot currentSnapshot() {
+    TaskSnapshot current = snapshot;
+    if (current == null || current.getVersion() != version) {
+      current = new TaskSnapshot(version, trackedView(taskList.getAllTasks()));
+      snapshot = current;
+    }
+    return current;
+  }
+
+  /**
+   * Gets the current version of the model, which changes whenever the model changes.
+   *
+   * @return The version number.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Checks whether a snapshot still reflects the current version of the model.
+   *
+   * @param snapshot The snapshot to check.
+   * @return True if the model has not changed since the snapshot was taken.
+   */
+  public boolean isCurrent(TaskSnapshot snapshot) {
+    return snapshot != null && snapshot.getVersion() == version;
   }
 
   /**
-   * Saves tasks to a CSV file.
+   * Saves tasks to a CSV file. The file is replaced atomically once the tasks have been
+   * forced to the disk, so a crash during the save leaves the previous file intact.
    *
    * @param filename The name of the CSV file.
    * @throws IOException If an I/O error occurs.
    */
   public void saveTasksToCSV(String filename) throws IOException {
-    try (FileWriter writer = new FileWriter(filename)) {
-      List<Task> allTasks = taskList.getAllTasks();
-      for (Task task : allTasks) {
-        writer.write(task.toCSVString() + "\n");
+    saveTasksToCSV(filename, SyncPolicy.DATA);
+  }
+
+  /**
+   * Saves tasks to a CSV file, syncing it to the disk as the specified policy says.
+   *
+   * @param filename The name of the CSV file.
+   * @param syncPolicy How hard the file is pushed to the disk before it replaces the old one.
+   * @throws IOException If an I/O error occurs.
+   */
+  public void saveTasksToCSV(String filename, SyncPolicy syncPolicy) throws IOException {
+    new TaskCsvWriter(syncPolicy, TaskCsvWriter.DEFAULT_BUFFER_SIZE).write(Paths.get(filename), snapshot());
+  }
+
+  /**
+   * Saves tasks to a CSV file on a background thread. The tasks of the current snapshot are
+   * copied when this method is called, so changes made while the file is written, and tasks
+   * removed meanwhile from a list that hands out views, don't reach the file. Cancelling
+   * the returned future stops the save at the next progress report and leaves the file as
+   * it was.
+   *
+   * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to, on the background thread.
+   * @return A future that completes when the file has been replaced.
+   */
+  public CompletableFuture<Void> saveTasksToCSVAsync(String filename, TaskProgressListener progress) {
+    TaskSnapshot snapshot = snapshot();
+    List<Task> tasks = new ArrayList<>(snapshot.size());
+    for (Task task : snapshot) {
+      Task copy = detachedCopy(task);
+      if (copy != null) {
+        tasks.add(copy);
       }
     }
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    FILE_EXECUTOR.execute(() -> {
+      try {
+        new TaskCsvWriter().write(Paths.get(filename), tasks, cancellable(future, progress));
+        future.complete(null);
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
   }
 
   /**
-   * Loads tasks from a CSV file into the model.
+   * Loads tasks from a CSV file on a background thread. The file is parsed first and the
+   * tasks are then added in one step, so cancelling the returned future while the file is
+   * being read leaves the model unchanged. Once the tasks start being added the load can no
+   * longer be cancelled, and cancel returns false. The tasks are added on the background thread, so a model
+   * that is read meanwhile, for example by the GUI, must be a ConcurrentTaskModel.
    *
    * @param filename The name of the CSV file.
+   * @param progress The listener to report the progress to, on the background thread.
+   * @return A future holding the malformed rows of the file.
+   */
+  public CompletableFuture<List<CsvRowError>> loadTasksFromCSVAsync(String filename, TaskProgressListener progress) {
+    LoadFuture<List<CsvRowError>> future = new LoadFuture<>();
+    FILE_EXECUTOR.execute(() -> {
+      try {
+        TaskProgressListener listener = cancellable(future, progress);
+        TaskCsvReader.Result result = new TaskCsvReader().read(Paths.get(filename), listener);
+        if (!future.claim()) {
+          return; // Cancelled after the file was read
+        }
+        addLoadedTasks(result.getTasks());
+        future.complete(result.getErrors());
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  // Wraps a progress listener so that the work stops once the future has been cancelled
+  private static TaskProgressListener cancellable(CompletableFuture<?> future, TaskProgressListener progress) {
+    return (rows, totalRows, bytes, totalBytes) -> {
+      if (future.isCancelled()) {
+        throw new CancellationException();
+      }
+      progress.progress(rows, totalRows, bytes, totalBytes);
+    };
+  }
+
+  /**
+   * Saves tasks to a binary task file, which is smaller and faster to read than CSV.
+   * Repeated descriptions are stored once. The file is replaced atomically.
+   *
+   * @param filename The name of the binary file.
    * @throws IOException If an I/O error occurs.
    */
-  public void loadTasksFromCSV(String filename) throws IOException {
-    taskList.loadFromCSV(filename);
+  public void saveTasksToBinary(String filename) throws IOException {
+    TaskBinaryWriter.write(Paths.get(filename), snapshot(), true, SyncPolicy.DATA);
+  }
+
+  /**
+   * Loads tasks from a binary task file into the model. The whole file is read before the
+   * model is touched, so a truncated or corrupt file leaves the model unchanged.
+   *
+   * @param filename The name of the binary file.
+   * @throws IOException If an I/O error occurs or the file is corrupt.
+   */
+  public void loadTasksFromBinary(String filename) throws IOException {
+    addLoadedTasks(TaskBinaryReader.read(Paths.get(filename)));
+  }
+
+  /**
+   * Loads tasks from a CSV file into the model. The file is parsed before the model is
+   * touched, and rows that can't be parsed are skipped and returned.
+   *
+   * @param filename The name of the CSV file.
+   * @return The malformed rows of the file, empty if every row was loaded.
+   * @throws IOException If an I/O error occurs.
+   */
+  public List<CsvRowError> loadTasksFromCSV(String filename) throws IOException {
+    TaskCsvReader.Result result = new TaskCsvReader().read(Paths.get(filename));
+    addLoadedTasks(result.getTasks());
+    return result.getErrors();
+  }
+
+  /**
+   * Adds tasks read from a file, keeping their stored IDs where they are not taken.
+   *
+   * @param tasks The tasks to add.
+   */
+  void addLoadedTasks(List<Task> tasks) {
+    addBulk(tasks, true, false);
+  }
+
+  /**
+   * Adds tasks in one step, as a single new version of the model.
+   *
+   * @param tasks The tasks to add.
+   * @param renumberDuplicates Whether a task whose ID is taken gets a new ID instead of
+   *     replacing the task with that ID.
+   * @param buildIndex Whether the secondary indexes are built right away instead of by the
+   *     next query that needs them.
+   */
+  void addBulk(Collection<Task> tasks, boolean renumberDuplicates, boolean buildIndex) {
+    List<Task> added = tracked(renumberDuplicates
+        ? taskList.addLoadedTasks(tasks instanceof List ? (List<Task>) tasks : new ArrayList<>(tasks))
+        : taskList.addAll(tasks));
+    if (indexBuilt && added.size() < index.size()) {
+      for (Task task : added) {
+        index.add(task); // Cheaper than re-filing the whole list for a small batch
+      }
+    } else {
+      indexBuilt = false;
+    }
+    if (buildIndex) {
+      buildIndex();
+    }
+    version++;
+    for (TaskModelListener listener : listeners) {
+      for (Task task : added) {
+        listener.taskAdded(task);
+      }
+    }
   }
 
   /**
@@ -70,7 +395,16 @@ public class TaskModel implements ITaskList {
    * @param taskId The ID of the task to remove.
    */
   public void removeTask(int taskId) {
-    taskList.removeTask(taskId);
+    if (!taskList.removeTask(taskId)) {
+      return; // Nothing to remove, so nothing changed
+    }
+    if (indexBuilt) {
+      index.remove(taskId);
+    }
+    version++;
+    for (TaskModelListener listener : listeners) {
+      listener.taskRemoved(taskId);
+    }
   }
 
   /**
@@ -81,7 +415,20 @@ public class TaskModel implements ITaskList {
    */
   @Override
   public void changeDate(Task task, LocalDate newDate) {
-
+    if (task == null) {
+      System.out.println("Task not found.");
+      return;
+    }
+    task = edit(task.getId(), edited -> edited.setDate(newDate));
+    if (task == null) {
+      System.out.println("Task not found.");
+      return;
+    }
+    reindex(task);
+    version++;
+    for (TaskModelListener listener : listeners) {
+      listener.taskDateChanged(task.getId(), newDate);
+    }
   }
 
   /**
@@ -91,7 +438,14 @@ public class TaskModel implements ITaskList {
    * @param newDate The new due date for the task.
    */
   public void changeTaskDate(int taskId, LocalDate newDate) {
-    taskList.changeTaskDate(taskId, newDate);
+    Task task = edit(taskId, edited -> edited.setDate(newDate));
+    reindex(task);
+    version++;
+    if (task != null) {
+      for (TaskModelListener listener : listeners) {
+        listener.taskDateChanged(taskId, newDate);
+      }
+    }
   }
 
   /**
@@ -99,14 +453,285 @@ public class TaskModel implements ITaskList {
    *
    * @param taskId The ID of the task to mark as completed.
    */
-
   public void markTaskCompleted(int taskId) {
-    taskList.markTaskCompleted(taskId);
+    Task task = edit(taskId, edited -> edited.setCompleted(true));
+    reindex(task);
+    version++;
+    if (task != null) {
+      for (TaskModelListener listener : listeners) {
+        listener.taskCompleted(taskId);
+      }
+    }
   }
 
+  /**
+   * Changes the priority of a task.
+   *
+   * @param taskId The ID of the task.
+   * @param priority The new priority for the task.
+   */
+  public void setPriority(int taskId, Priority priority) {
+    Task task = edit(taskId, edited -> edited.setPriority(priority));
+    if (task == null) {
+      System.out.println("Task with ID " + taskId + " not found.");
+      return;
+    }
+    reindex(task);
+    version++;
+    for (TaskModelListener listener : listeners) {
+      listener.taskUpdated(task);
+    }
+  }
+
+  /**
+   * Changes the description, due date and priority of a task in one step, so that no reader
+   * of a shared model sees the task half edited.
+   *
+   * @param taskId The ID of the task to edit.
+   * @param description The new description.
+   * @param dueDate The new due date.
+   * @param priority The new priority.
+   * @return True if the task was found and edited.
+   */
+  @Override
+  public boolean editTask(int taskId, String description, LocalDate dueDate, Priority priority) {
+    Task task = edit(taskId, edited -> {
+      edited.setDescription(description);
+      edited.setDate(dueDate);
+      edited.setPriority(priority);
+    });
+    if (task == null) {
+      return false;
+    }
+    reindex(task);
+    version++;
+    for (TaskModelListener listener : listeners) {
+      listener.taskUpdated(task);
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether edits made through the model are made to a copy of the task, which then
+   * replaces the task in the list, rather than to the task itself. A model shared between
+   * threads copies, so that a task a reader got from a lookup or a snapshot never changes.
+   *
+   * @return True if edits replace the task with an edited copy.
+   */
+  boolean copiesOnEdit() {
+    return false;
+  }
+
+  // Applies an edit to the task with an ID, or to a copy that replaces it if copiesOnEdit,
+  // and returns the task the list holds afterwards, or null if there is no such task
+  private Task edit(int taskId, Consumer<Task> change) {
+    Task task = taskList.getTaskById(taskId);
+    if (task == null) {
+      return null;
+    }
+    if (!copiesOnEdit()) {
+      change.accept(tracked(task));
+      taskList.updateTask(task);
+      return task;
+    }
+    Task copy = copyOf(task);
+    change.accept(copy);
+    return tracked(taskList.addTaskAndGet(copy));
+  }
+
+  /**
+   * Updates the indexes after a task has been edited through its setters.
+   *
+   * @param task The edited task.
+   */
   @Override
   public void updateTask(Task task) {
+    if (task != null) {
+      taskList.updateTask(task);
+    }
+    reindex(task);
+    version++;
+    if (task != null) {
+      for (TaskModelListener listener : listeners) {
+        listener.taskUpdated(task);
+      }
+    }
+  }
+
+  /**
+   * Retrieves the tasks with the specified priority from the priority index.
+   *
+   * @param priority The priority to filter by.
+   * @return A list of tasks with the priority.
+   */
+  public List<Task> getTasksByPriority(Priority priority) {
+    return index().getByPriority(priority);
+  }
+
+  /**
+   * Retrieves the tasks with the specified completion status from the completion index.
+   *
+   * @param completed The completion status to filter by.
+   * @return A list of tasks with the completion status.
+   */
+  public List<Task> getTasksByCompletion(boolean completed) {
+    return index().getByCompletion(completed);
+  }
+
+  /**
+   * Retrieves the tasks due on or after the specified date from the date index.
+   *
+   * @param date The earliest due date to include.
+   * @return A list of tasks ordered by due date.
+   */
+  public List<Task> getTasksByDate(LocalDate date) {
+    return index().getOnOrAfter(date);
+  }
+
+  /**
+   * Retrieves the tasks due between two dates, both inclusive, from the date index.
+   *
+   * @param from The earliest due date to include.
+   * @param to The latest due date to include.
+   * @return A list of tasks ordered by due date.
+   */
+  public List<Task> getTasksBetween(LocalDate from, LocalDate to) {
+    return index().getBetween(from, to);
+  }
+
+  /**
+   * Retrieves the tasks that are not completed and were due before the current date.
+   *
+   * @param currentDate The source of the current date.
+   * @return A list of overdue tasks ordered by due date.
+   */
+  public List<Task> getOverdueTasks(IDate currentDate) {
+    return index().getOverdue(currentDate.getCurrentDate());
+  }
+
+  /**
+   * Retrieves the tasks that match a query. The query is answered from whichever index
+   * supplies the fewest candidates, and the criteria that index doesn't cover are checked
+   * on each candidate.
+   *
+   * @param query The query to run.
+   * @return A list of the matching tasks, sorted and limited as the query says.
+   */
+  public List<Task> query(TaskQuery query) {
+    return TaskQueryPlan.choose(query, index()).run(queryPool, parallelThreshold);
+  }
+
+  /**
+   * Retrieves one page of the tasks that match a query, as many as the limit of the query,
+   * or TaskPage.DEFAULT_SIZE if it has none. Only the tasks of the page are collected; a
+   * sorted query keeps the best of its matches in a heap of the size of the page.
+   * A query without a sort order is paged in ID order, so that pages follow each other.
+   *
+   * @param query The query to run; the query of the page before for the next page.
+   * @return The page, with the query for the page after it.
+   */
+  public TaskPage queryPage(TaskQuery query) {
+    int size = query.getLimit() == Integer.MAX_VALUE ? TaskPage.DEFAULT_SIZE : query.getLimit();
+    if (size == 0) {
+      return new TaskPage(new ArrayList<>(), null);
+    }
+    TaskQuery.Builder builder = query.toBuilder();
+    if (query.getSort() == null) {
+      builder.sortBy(TaskQuery.Sort.ID);
+    }
+    // One task more than the page tells whether another page follows
+    List<Task> found = TaskQueryPlan.choose(builder.limit(size + 1).build(), index()).run(queryPool, parallelThreshold);
+    if (found.size() <= size) {
+      return new TaskPage(found, null);
+    }
+    List<Task> tasks = new ArrayList<>(found.subList(0, size));
+    return new TaskPage(tasks, builder.limit(query.getLimit()).after(tasks.get(size - 1)).build());
+  }
 
+  /**
+   * Sets where queries that have to check many tasks one by one run. A query that checks at
+   * least the threshold of tasks splits them across the pool, and its results come out the
+   * same and in the same order as on one thread. By default queries use the common pool
+   * from DEFAULT_PARALLEL_THRESHOLD tasks on; a dedicated pool keeps them from competing
+   * with other work for its threads.
+   *
+   * @param pool The pool to run large query scans in.
+   * @param threshold The number of tasks from which a scan is split, or Integer.MAX_VALUE to
+   *                  always scan on the calling thread.
+   * @throws IllegalArgumentException If the threshold is less than 1.
+   */
+  public void setQueryParallelism(ForkJoinPool pool, int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be at least 1: " + threshold);
+    }
+    this.queryPool = Objects.requireNonNull(pool);
+    this.parallelThreshold = threshold;
+  }
+
+  /**
+   * Gets a stamp of the values a query reads from the indexes. It changes whenever a task is
+   * added or removed or a value the query filters or sorts by changes, so a result of the
+   * query stays valid while the stamp is the same.
+   *
+   * @param query The query to get the stamp for.
+   * @return The stamp.
+   */
+  public long queryVersion(TaskQuery query) {
+    return index().versionFor(query);
+  }
+
+  /**
+   * Describes how a query would be answered, without running it.
+   *
+   * @param query The query to plan.
+   * @return The index the query would use and the number of candidates it would check.
+   */
+  public String explain(TaskQuery query) {
+    return TaskQueryPlan.choose(query, index()).toString();
+  }
+
+  /**
+   * Retrieves the words of task descriptions that start with a prefix, from the word index,
+   * for example to complete a search as it is typed.
+   *
+   * @param prefix The start of the word, in any case.
+   * @param max The most words to return.
+   * @return The words in lower case and alphabetical order.
+   */
+  public List<String> suggestWords(String prefix, int max) {
+    return index().text().complete(prefix.trim().toLowerCase(Locale.ROOT), max);
+  }
+
+  /**
+   * Checks whether the secondary indexes have been built.
+   *
+   * @return True if the indexes are built and kept up to date.
+   */
+  boolean isIndexBuilt() {
+    return indexBuilt;
+  }
+
+  /**
+   * Builds the secondary indexes from the tasks in the task list if they are not built yet.
+   */
+  void buildIndex() {
+    if (!indexBuilt) {
+      index.rebuild(trackedView(taskList.getAllTasks()));
+      indexBuilt = true;
+    }
+  }
+
+  // Gets the secondary indexes, building them the first time a query needs them
+  private TaskIndex index() {
+    buildIndex();
+    return index;
+  }
+
+  // Re-files a changed task, unless the indexes haven't been built yet
+  private void reindex(Task task) {
+    if (indexBuilt) {
+      index.update(task);
+    }
   }
 
   /**
@@ -116,9 +741,77 @@ public class TaskModel implements ITaskList {
    * @return The task with the specified ID, or null if not found.
    */
   public Task getTaskById(int taskId) {
-    return taskList.getTaskById(taskId);
+    return tracked(taskList.getTaskById(taskId));
+  }
+
+  /**
+   * Takes the IDs of the tasks that changed since the last call, through the methods of the
+   * model or through the setters of the tasks it handed out, including added and removed
+   * tasks, and starts tracking afresh. Used to save only what changed.
+   *
+   * @return The IDs of the changed tasks, or null if so many tasks changed that every task
+   *     counts as changed.
+   */
+  public Set<Integer> takeChangedTaskIds() {
+    return changes.take();
+  }
+
+  /**
+   * Puts back the changes taken by takeChangedTaskIds after they could not be saved.
+   *
+   * @param taskIds The IDs returned by takeChangedTaskIds.
+   */
+  void restoreChangedTaskIds(Set<Integer> taskIds) {
+    changes.restore(taskIds);
+  }
+
+  // Makes changes through the setters of a task handed out by the model count as changes
+  private Task tracked(Task task) {
+    if (task != null) {
+      task.trackChanges(changes);
+    }
+    return task;
+  }
+
+  private List<Task> tracked(List<Task> tasks) {
+    for (Task task : tasks) {
+      task.trackChanges(changes);
+    }
+    return tasks;
+  }
+
+  // Tracks the tasks of a list as they are read rather than all at once, so that a list
+  // whose tasks are parsed on demand, such as a LazyTaskList, isn't read whole up front
+  private List<Task> trackedView(List<Task> tasks) {
+    return new AbstractList<Task>() {
+      @Override
+      public Task get(int i) {
+        return tracked(tasks.get(i));
+      }
+
+      @Override
+      public int size() {
+        return tasks.size();
+      }
+    };
   }
 
-  public void updateTask() {
+  /**
+   * A future that either the load or a cancel claims, whichever comes first. Checking
+   * isCancelled before adding the tasks is not enough, since a cancel right after the check
+   * would report the load as cancelled while every task is still added.
+   */
+  private static final class LoadFuture<T> extends CompletableFuture<T> {
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    // Claims the future for applying the load, false if it was cancelled first
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      return claim() && super.cancel(mayInterruptIfRunning);
+    }
   }
 }
@@ -0,0 +1,48 @@
+package org.example;
+
+import java.time.LocalDate;
+
+/**
+ * Receives the changes made to a TaskModel, in the order they are made.
+ * Every method does nothing by default, so a listener only overrides the changes it cares
+ * about. Listeners are called while the model is being changed, and in a ConcurrentTaskModel
+ * while its write lock is held, so they must return quickly and must not change the model.
+ */
+public interface TaskModelListener {
+
+  /**
+   * Called after a task has been added, also for each task loaded from a file.
+   * @param task The task as the model stores it.
+   */
+  default void taskAdded(Task task) {
+  }
+
+  /**
+   * Called after a task has been removed.
+   * @param taskId The ID of the removed task.
+   */
+  default void taskRemoved(int taskId) {
+  }
+
+  /**
+   * Called after a task has been marked as completed.
+   * @param taskId The ID of the completed task.
+   */
+  default void taskCompleted(int taskId) {
+  }
+
+  /**
+   * Called after the due date of a task has changed.
+   * @param taskId The ID of the task.
+   * @param newDate The new due date.
+   */
+  default void taskDateChanged(int taskId, LocalDate newDate) {
+  }
+
+  /**
+   * Called after a task has been edited, for example its priority or description.
+   * @param task The edited task, holding all of its new values.
+   */
+  default void taskUpdated(Task task) {
+  }
+}
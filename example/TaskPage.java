@@ -0,0 +1,69 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the results of a TaskQuery, with the query for the page after it.
+ * Pages continue from the last task of the page before in the sort order of the query,
+ * rather than from a position, so a page neither repeats nor skips tasks when tasks are
+ * added or removed between pages.
+ *
+ * <p>Usage:
+ * <pre>{@code
+ * TaskPage page = model.queryPage(TaskQuery.builder().completed(false).limit(100).build());
+ * show(page.getTasks());
+ * while (page.hasNext() && wantsMore()) {
+ *   page = model.queryPage(page.nextPage());
+ *   show(page.getTasks());
+ * }
+ * }</pre>
+ */
+public final class TaskPage {
+  /**
+   * The number of tasks on a page of a query that has no limit.
+   */
+  public static final int DEFAULT_SIZE = 100;
+
+  private final List<Task> tasks;
+  private final TaskQuery next; // Null on the last page
+
+  /**
+   * Constructs a page.
+   *
+   * @param tasks The tasks on the page.
+   * @param next The query for the next page, or null if this is the last page.
+   */
+  TaskPage(List<Task> tasks, TaskQuery next) {
+    this.tasks = Collections.unmodifiableList(tasks);
+    this.next = next;
+  }
+
+  /**
+   * Gets the tasks on the page, in the sort order of the query.
+   *
+   * @return A read-only list of the tasks.
+   */
+  public List<Task> getTasks() {
+    return tasks;
+  }
+
+  /**
+   * Checks whether more results follow this page.
+   *
+   * @return True if there is a next page.
+   */
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  /**
+   * Gets the query for the next page: the same query, starting after the last task of
+   * this page.
+   *
+   * @return The query for the next page, or null if this is the last page.
+   */
+  public TaskQuery nextPage() {
+    return next;
+  }
+}
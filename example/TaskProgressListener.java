@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * Receives the progress of saving or loading a task file. It is called on the thread doing
+ * the work, every few hundred kilobytes. Throwing an unchecked exception, for example a
+ * CancellationException, stops the save or load.
+ */
+@FunctionalInterface
+public interface TaskProgressListener {
+
+  /** A listener that ignores the progress. */
+  TaskProgressListener NONE = (rows, totalRows, bytes, totalBytes) -> { };
+
+  /**
+   * Reports the progress so far.
+   * @param rows The number of tasks saved or loaded so far.
+   * @param totalRows The number of tasks to save, or -1 if not known.
+   * @param bytes The number of bytes written or read so far.
+   * @param totalBytes The size of the file being read, or -1 if not known.
+   */
+  void progress(long rows, long totalRows, long bytes, long totalBytes);
+}
@@ -0,0 +1,571 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A filter over the tasks of a list that combines any of the criteria priority, completion
+ * status, due date range, description text and description words, with an optional sort
+ * order and limit.
+ * A task matches when it meets every criterion that is set.
+ *
+ * <p>Queries are built with a Builder and are immutable, so one query can be kept and run
+ * again. Usage:
+ * <pre>{@code
+ * List<Task> urgent = model.query(TaskQuery.builder()
+ *     .priority(Priority.RED)
+ *     .completed(false)
+ *     .dueBetween(today, today.plusDays(7))
+ *     .descriptionContains("report")
+ *     .sortBy(TaskQuery.Sort.DUE_DATE)
+ *     .limit(50)
+ *     .build());
+ * }</pre>
+ */
+public final class TaskQuery {
+  private final Set<Priority> priorities; // Null if any priority matches
+  private final Boolean completed; // Null if either status matches
+  private final LocalDate dueFrom; // Null if there is no lower bound
+  private final LocalDate dueTo; // Null if there is no upper bound
+  private final String text; // Null if any description matches
+  private final List<String> words; // Null if any description matches
+  private final Sort sort; // Null if the order is left to the query plan
+  private final boolean descending;
+  private final int limit;
+  private final Task after; // Copy of the task the results start after, or null
+  private final Comparator<Task> comparator; // Null if the results are not sorted
+
+  private TaskQuery(Builder builder) {
+    this.priorities = builder.priorities == null ? null : EnumSet.copyOf(builder.priorities);
+    this.completed = builder.completed;
+    this.dueFrom = builder.dueFrom;
+    this.dueTo = builder.dueTo;
+    this.text = builder.text;
+    this.words = builder.words;
+    this.sort = builder.sort;
+    this.descending = builder.descending;
+    this.limit = builder.limit;
+    this.after = builder.after;
+    if (sort == null) {
+      this.comparator = null;
+    } else {
+      this.comparator = descending ? sort.comparator.reversed() : sort.comparator;
+    }
+  }
+
+  /**
+   * Starts building a query. A query built without setting anything matches every task.
+   *
+   * @return A new builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Starts building a query with the criteria, order and limit of this one.
+   *
+   * @return A new builder holding the values of this query.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Checks whether a task meets every criterion of the query.
+   *
+   * @param task The task to check.
+   * @return True if the task matches.
+   */
+  public boolean matches(Task task) {
+    if (priorities != null && !priorities.contains(task.getPriority())) {
+      return false;
+    }
+    if (completed != null && completed != task.isCompleted()) {
+      return false;
+    }
+    if (hasDateRange()) {
+      LocalDate due = task.getDueDate();
+      if (due == null || (dueFrom != null && due.isBefore(dueFrom)) || (dueTo != null && due.isAfter(dueTo))) {
+        return false;
+      }
+    }
+    if (words != null && !hasWords(task.getDescription())) {
+      return false;
+    }
+    return text == null || containsIgnoreCase(task.getDescription(), text);
+  }
+
+  // Whether each query word starts a word of the description, compared in place
+  private boolean hasWords(String description) {
+    if (description == null) {
+      return false;
+    }
+    for (String word : words) {
+      boolean found = false;
+      for (int i = 0; i <= description.length() - word.length() && !found; i++) {
+        boolean wordStart = i == 0 || !Character.isLetterOrDigit(description.charAt(i - 1));
+        found = wordStart && description.regionMatches(true, i, word, 0, word.length());
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Case-insensitive substring search that doesn't copy the description
+  private static boolean containsIgnoreCase(String description, String text) {
+    if (description == null) {
+      return false;
+    }
+    for (int i = 0; i <= description.length() - text.length(); i++) {
+      if (description.regionMatches(true, i, text, 0, text.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Counts the criteria that are set, a word of the description counting as one each, so
+   * that a query plan can tell whether its index covers the whole query.
+   *
+   * @return The number of criteria.
+   */
+  int criteria() {
+    int count = words == null ? 0 : words.size();
+    for (Object criterion : new Object[] {priorities, completed, dueFrom, dueTo, text}) {
+      count += criterion == null ? 0 : 1;
+    }
+    return count;
+  }
+
+  /**
+   * Gets the priorities a task may have to match.
+   *
+   * @return The priorities, or null if any priority matches.
+   */
+  public Set<Priority> getPriorities() {
+    return priorities == null ? null : EnumSet.copyOf(priorities);
+  }
+
+  /**
+   * Gets the completion status a task must have to match.
+   *
+   * @return The status, or null if either status matches.
+   */
+  public Boolean getCompleted() {
+    return completed;
+  }
+
+  /**
+   * Gets the earliest due date that matches.
+   *
+   * @return The date, or null if there is no lower bound.
+   */
+  public LocalDate getDueFrom() {
+    return dueFrom;
+  }
+
+  /**
+   * Gets the latest due date that matches.
+   *
+   * @return The date, or null if there is no upper bound.
+   */
+  public LocalDate getDueTo() {
+    return dueTo;
+  }
+
+  /**
+   * Checks whether the query restricts the due date. Tasks without a due date never match
+   * such a query.
+   *
+   * @return True if a lower or upper bound is set.
+   */
+  public boolean hasDateRange() {
+    return dueFrom != null || dueTo != null;
+  }
+
+  /**
+   * Gets the text the description of a task must contain, ignoring case, to match.
+   *
+   * @return The text in lower case, or null if any description matches.
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * Gets the words that must each start a word of the description of a task to match.
+   *
+   * @return The words in lower case, or null if any description matches.
+   */
+  public List<String> getWords() {
+    return words;
+  }
+
+  /**
+   * Gets the order of the results.
+   *
+   * @return The sort order, or null if the order is left to the query plan.
+   */
+  public Sort getSort() {
+    return sort;
+  }
+
+  /**
+   * Checks whether the results are sorted in descending order.
+   *
+   * @return True for descending order.
+   */
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /**
+   * Gets the comparator the results are sorted with, including the direction.
+   *
+   * @return The comparator, or null if the results are not sorted.
+   */
+  public Comparator<Task> comparator() {
+    return comparator;
+  }
+
+  /**
+   * Gets the most results the query returns.
+   *
+   * @return The limit, Integer.MAX_VALUE if there is none.
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Gets the task the results start after, in the sort order. The task is a copy taken when
+   * the query was built, so later changes to the task don't move the start.
+   *
+   * @return The copy of the task, or null if the results start at the beginning.
+   */
+  public Task getAfter() {
+    return after;
+  }
+
+  /**
+   * Checks whether a task comes after the start of the results, which every task does if the
+   * query has no start.
+   *
+   * @param task The task to check.
+   * @return True if the task may be a result.
+   */
+  boolean isPastStart(Task task) {
+    return after == null || comparator.compare(task, after) > 0;
+  }
+
+  /**
+   * Checks whether another query has the same criteria, order, limit and start, so that it
+   * finds the same results. Texts and words are compared in lower case.
+   *
+   * @param obj The object to compare with.
+   * @return True if the object is an equal query.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TaskQuery)) {
+      return false;
+    }
+    TaskQuery other = (TaskQuery) obj;
+    return Objects.equals(priorities, other.priorities)
+        && Objects.equals(completed, other.completed)
+        && Objects.equals(dueFrom, other.dueFrom)
+        && Objects.equals(dueTo, other.dueTo)
+        && Objects.equals(text, other.text)
+        && Objects.equals(words, other.words)
+        && sort == other.sort
+        && descending == other.descending
+        && limit == other.limit
+        && (after == null ? other.after == null
+            : other.after != null && after.getId() == other.after.getId() && after.equals(other.after));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(priorities, completed, dueFrom, dueTo, text, words, sort, descending, limit,
+        after == null ? null : after.getId());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("TaskQuery[");
+    if (priorities != null) {
+      builder.append("priority in ").append(priorities).append(", ");
+    }
+    if (completed != null) {
+      builder.append("completed=").append(completed).append(", ");
+    }
+    if (hasDateRange()) {
+      builder.append("due ").append(dueFrom == null ? "..." : dueFrom)
+          .append("..").append(dueTo == null ? "..." : dueTo).append(", ");
+    }
+    if (text != null) {
+      builder.append("text~\"").append(text).append("\", ");
+    }
+    if (words != null) {
+      builder.append("words=").append(words).append(", ");
+    }
+    if (sort != null) {
+      builder.append("sort=").append(sort).append(descending ? " desc" : "").append(", ");
+    }
+    if (limit != Integer.MAX_VALUE) {
+      builder.append("limit=").append(limit).append(", ");
+    }
+    if (after != null) {
+      builder.append("after=").append(after.getId()).append(", ");
+    }
+    if (builder.charAt(builder.length() - 1) == ' ') {
+      builder.setLength(builder.length() - 2);
+    }
+    return builder.append("]").toString();
+  }
+
+  /**
+   * The orders query results can be sorted in. Tasks that are equal by the sort key are
+   * ordered by ID, so the order of the results doesn't depend on the plan that found them.
+   */
+  public enum Sort {
+    /**
+     * By due date, tasks without a due date last.
+     */
+    DUE_DATE(Comparator.comparing(Task::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))),
+
+    /**
+     * By priority, from RED to GREEN, tasks without a priority last.
+     */
+    PRIORITY(Comparator.comparing(Task::getPriority, Comparator.nullsLast(Comparator.naturalOrder()))),
+
+    /**
+     * By description, ignoring case.
+     */
+    DESCRIPTION(Comparator.comparing(Task::getDescription, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))),
+
+    /**
+     * By ID.
+     */
+    ID(Comparator.comparingInt(Task::getId)),
+
+    /**
+     * By priority, then by due date, as Task.BY_PRIORITY_AND_DUE_DATE orders tasks.
+     */
+    PRIORITY_DUE_DATE(Task.BY_PRIORITY_AND_DUE_DATE);
+
+    private final Comparator<Task> comparator;
+
+    Sort(Comparator<Task> comparator) {
+      this.comparator = comparator.thenComparingInt(Task::getId);
+    }
+  }
+
+  /**
+   * Collects the criteria of a query. Each setter replaces the value set before.
+   */
+  public static class Builder {
+    private Set<Priority> priorities;
+    private Boolean completed;
+    private LocalDate dueFrom;
+    private LocalDate dueTo;
+    private String text;
+    private List<String> words;
+    private Sort sort;
+    private boolean descending;
+    private int limit = Integer.MAX_VALUE;
+    private Task after;
+
+    private Builder() {
+    }
+
+    private Builder(TaskQuery query) {
+      this.priorities = query.priorities;
+      this.completed = query.completed;
+      this.dueFrom = query.dueFrom;
+      this.dueTo = query.dueTo;
+      this.text = query.text;
+      this.words = query.words;
+      this.sort = query.sort;
+      this.descending = query.descending;
+      this.limit = query.limit;
+      this.after = query.after;
+    }
+
+    /**
+     * Matches tasks with any of the specified priorities.
+     *
+     * @param priorities The priorities to match.
+     * @return This builder.
+     */
+    public Builder priority(Priority... priorities) {
+      this.priorities = EnumSet.noneOf(Priority.class);
+      for (Priority priority : priorities) {
+        this.priorities.add(priority);
+      }
+      return this;
+    }
+
+    /**
+     * Matches tasks with the specified completion status.
+     *
+     * @param completed True to match completed tasks, false for incomplete tasks.
+     * @return This builder.
+     */
+    public Builder completed(boolean completed) {
+      this.completed = completed;
+      return this;
+    }
+
+    /**
+     * Matches tasks due on or after the specified date.
+     *
+     * @param date The earliest due date to match.
+     * @return This builder.
+     */
+    public Builder dueOnOrAfter(LocalDate date) {
+      this.dueFrom = date;
+      return this;
+    }
+
+    /**
+     * Matches tasks due on or before the specified date.
+     *
+     * @param date The latest due date to match.
+     * @return This builder.
+     */
+    public Builder dueOnOrBefore(LocalDate date) {
+      this.dueTo = date;
+      return this;
+    }
+
+    /**
+     * Matches tasks due between two dates, both inclusive.
+     *
+     * @param from The earliest due date to match.
+     * @param to The latest due date to match.
+     * @return This builder.
+     */
+    public Builder dueBetween(LocalDate from, LocalDate to) {
+      this.dueFrom = from;
+      this.dueTo = to;
+      return this;
+    }
+
+    /**
+     * Matches tasks that are not completed and were due before the specified date.
+     *
+     * @param today The date to check against.
+     * @return This builder.
+     */
+    public Builder overdue(LocalDate today) {
+      this.completed = false;
+      this.dueTo = today.minusDays(1);
+      return this;
+    }
+
+    /**
+     * Matches tasks whose description contains the specified text, ignoring case.
+     *
+     * @param text The text to look for; null or empty matches any description.
+     * @return This builder.
+     */
+    public Builder descriptionContains(String text) {
+      this.text = text == null || text.isEmpty() ? null : text.toLowerCase(Locale.ROOT);
+      return this;
+    }
+
+    /**
+     * Matches tasks with a description that has, for each word of the text, a word starting
+     * with it, ignoring case, as a search box does. Words are the runs of letters and digits.
+     * Unlike descriptionContains, this criterion is answered from the word index.
+     *
+     * @param text The words to look for; null or a text without words matches any description.
+     * @return This builder.
+     */
+    public Builder descriptionHasWords(String text) {
+      List<String> split = TaskTextIndex.words(text);
+      this.words = split.isEmpty() ? null : Collections.unmodifiableList(split);
+      return this;
+    }
+
+    /**
+     * Sorts the results in ascending order.
+     *
+     * @param sort The sort order.
+     * @return This builder.
+     */
+    public Builder sortBy(Sort sort) {
+      return sortBy(sort, false);
+    }
+
+    /**
+     * Sorts the results.
+     *
+     * @param sort The sort order.
+     * @param descending True to sort in descending order.
+     * @return This builder.
+     */
+    public Builder sortBy(Sort sort, boolean descending) {
+      this.sort = sort;
+      this.descending = descending;
+      return this;
+    }
+
+    /**
+     * Returns at most the specified number of results, the first ones in the sort order.
+     *
+     * @param limit The most results to return.
+     * @return This builder.
+     * @throws IllegalArgumentException If the limit is negative.
+     */
+    public Builder limit(int limit) {
+      if (limit < 0) {
+        throw new IllegalArgumentException("Limit must not be negative: " + limit);
+      }
+      this.limit = limit;
+      return this;
+    }
+
+    /**
+     * Starts the results after a task in the sort order, the way a page continues from the
+     * last task of the page before. The start is taken from the values the task has now, so
+     * the next page neither repeats nor skips tasks when that task is changed or removed.
+     * Needs a sort order, which decides what comes after.
+     *
+     * @param task The task to start after, or null to start at the beginning.
+     * @return This builder.
+     */
+    public Builder after(Task task) {
+      this.after = task == null ? null : new Task(task.getId(), task.getDescription(), task.getDueDate(),
+          task.isCompleted(), task.getPriority());
+      return this;
+    }
+
+    /**
+     * Builds the query.
+     *
+     * @return The query.
+     * @throws IllegalStateException If the query starts after a task but has no sort order.
+     */
+    public TaskQuery build() {
+      if (after != null && sort == null) {
+        throw new IllegalStateException("A query that starts after a task needs a sort order");
+      }
+      return new TaskQuery(this);
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of query results in front of a TaskModel, for filters that are run again
+ * and again while the tasks they read rarely change.
+ *
+ * <p>Results are kept per query, as equal queries find the same tasks, and per page for
+ * queryPage. Each result is stored with the stamp TaskModel.queryVersion gave its query,
+ * which changes whenever a task is added or removed or a value the query filters or sorts by
+ * changes. A result whose stamp is out of date is never returned, so changes to other values,
+ * such as descriptions for a priority filter, leave it cached. Once the cache is full the
+ * least recently used result is dropped.
+ *
+ * <p>Cached lists are shared between callers and read-only. The tasks in them are the live
+ * tasks of the model, as in the results of TaskModel.query.
+ */
+public class TaskQueryCache {
+  /**
+   * The number of results kept by a cache constructed without a capacity.
+   */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private final TaskModel model;
+  private final Map<Object, Entry> entries; // Query or PageKey -> result, least recently used first
+  private long hits;
+  private long misses;
+  private long stale; // Misses that found a result with an out of date stamp
+  private long evictions;
+
+  /**
+   * Constructs a cache that keeps up to DEFAULT_CAPACITY results.
+   *
+   * @param model The model to run the queries against.
+   */
+  public TaskQueryCache(TaskModel model) {
+    this(model, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a cache.
+   *
+   * @param model The model to run the queries against.
+   * @param capacity The most results to keep.
+   * @throws IllegalArgumentException If the capacity is less than 1.
+   */
+  public TaskQueryCache(TaskModel model, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+    }
+    this.model = model;
+    this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+        if (size() > capacity) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets the tasks that match a query, from the cache if the model hasn't changed in a way
+   * that affects them since they were cached.
+   *
+   * @param query The query to run.
+   * @return A read-only list of the matching tasks, sorted and limited as the query says.
+   */
+  public List<Task> query(TaskQuery query) {
+    long version = model.queryVersion(query);
+    List<Task> cached = lookup(query, version);
+    if (cached != null) {
+      return cached;
+    }
+    // Stamped with the version from before the query ran, so a change in between only
+    // makes the result look older than it is
+    List<Task> tasks = Collections.unmodifiableList(model.query(query));
+    store(query, version, tasks);
+    return tasks;
+  }
+
+  /**
+   * Gets one page of the tasks that match a query, from the cache if the model hasn't
+   * changed in a way that affects it since it was cached.
+   *
+   * @param query The query to run, whose limit is the size of the page.
+   * @return The page, with the query for the page after it.
+   */
+  public TaskPage queryPage(TaskQuery query) {
+    long version = model.queryVersion(query);
+    PageKey key = new PageKey(query);
+    TaskPage cached = lookup(key, version);
+    if (cached != null) {
+      return cached;
+    }
+    TaskPage page = model.queryPage(query);
+    store(key, version, page);
+    return page;
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized <T> T lookup(Object key, long version) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.version == version) {
+      hits++;
+      return (T) entry.result;
+    }
+    misses++;
+    if (entry != null) {
+      stale++;
+      entries.remove(key);
+    }
+    return null;
+  }
+
+  private synchronized void store(Object key, long version, Object result) {
+    Entry entry = entries.get(key);
+    // Another thread may have cached a newer result meanwhile
+    if (entry == null || entry.version < version) {
+      entries.put(key, new Entry(version, result));
+    }
+  }
+
+  /**
+   * Drops every cached result. The statistics are kept.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Gets the hit and miss counts of the cache so far, for example to tune its capacity.
+   *
+   * @return A snapshot of the statistics.
+   */
+  public synchronized Stats stats() {
+    return new Stats(hits, misses, stale, evictions, entries.size());
+  }
+
+  /**
+   * A cached result and the stamp of its query when it was computed.
+   */
+  private static class Entry {
+    private final long version;
+    private final Object result;
+
+    Entry(long version, Object result) {
+      this.version = version;
+      this.result = result;
+    }
+  }
+
+  /**
+   * The key of a cached page, which differs from the key of the whole result of the query.
+   */
+  private static class PageKey {
+    private final TaskQuery query;
+
+    PageKey(TaskQuery query) {
+      this.query = query;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof PageKey && query.equals(((PageKey) obj).query);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(PageKey.class, query);
+    }
+  }
+
+  /**
+   * The counts of a TaskQueryCache at one point in time.
+   */
+  public static final class Stats {
+    private final long hits;
+    private final long misses;
+    private final long stale;
+    private final long evictions;
+    private final int size;
+
+    Stats(long hits, long misses, long stale, long evictions, int size) {
+      this.hits = hits;
+      this.misses = misses;
+      this.stale = stale;
+      this.evictions = evictions;
+      this.size = size;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to run the query.
+     *
+     * @return The number of misses, including the stale ones.
+     */
+    public long getMisses() {
+      return misses;
+    }
+
+    /**
+     * Gets the number of misses that found a cached result the model had since changed.
+     *
+     * @return The number of results found out of date.
+     */
+    public long getStale() {
+      return stale;
+    }
+
+    /**
+     * Gets the number of results dropped to make room for newer ones.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+      return evictions;
+    }
+
+    /**
+     * Gets the number of results cached.
+     *
+     * @return The number of results.
+     */
+    public int getSize() {
+      return size;
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 before the first lookup.
+     */
+    public double getHitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d hits, %d misses (%d stale), %d evictions, %d cached, hit rate %.1f%%",
+          hits, misses, stale, evictions, size, getHitRate() * 100);
+    }
+  }
+}
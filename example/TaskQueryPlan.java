@@ -0,0 +1,447 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.Set;
+
+/**
+ * How a TaskQuery is answered: which index supplies the candidate tasks, which are then
+ * checked against the whole query.
+ *
+ * <p>The planner reads the sizes of the index buckets the query can use to estimate how many
+ * candidates each index would supply and how many of them would match, treating the criteria
+ * as independent. The words of the description are looked up in the word index; a substring
+ * of the description has no index and is always checked on the candidates.
+ * An index whose buckets already come in the order the query sorts by can stop once it has
+ * found enough results for the limit, which can make it the cheaper plan even when it
+ * supplies more candidates.
+ *
+ * <p>A plan reads live views of the indexes, so it must be run while the model can't change.
+ */
+final class TaskQueryPlan {
+  private final TaskQuery query;
+  private final String access; // The index the candidates come from, for explain
+  private final List<Collection<Task>> groups; // The candidates, in groups
+  private final long candidates; // Number of tasks in the groups
+  private final boolean ordered; // Whether the groups come in the sort order of the query
+  private boolean exact; // Whether every candidate matches, so none needs checking
+  private double cost; // Estimated number of tasks read and sorted
+
+  private TaskQueryPlan(TaskQuery query, String access, List<Collection<Task>> groups,
+      long candidates, boolean ordered) {
+    this.query = query;
+    this.access = access;
+    this.groups = groups;
+    this.candidates = candidates;
+    this.ordered = ordered;
+  }
+
+  /**
+   * Picks the cheapest plan for a query.
+   *
+   * @param query The query to plan.
+   * @param index The indexes of the model the query runs against.
+   * @return The plan.
+   */
+  static TaskQueryPlan choose(TaskQuery query, TaskIndex index) {
+    int size = index.size();
+    List<TaskQueryPlan> plans = new ArrayList<>();
+    plans.add(fullScan(query, index));
+    double matches = size; // Every plan finds the same matches
+    if (query.getCompleted() != null) {
+      TaskQueryPlan completion = byCompletion(query, index);
+      plans.add(completion);
+      matches *= fraction(completion.candidates, size);
+    }
+    if (query.hasDateRange()) {
+      TaskQueryPlan date = byDate(query, index);
+      plans.add(date);
+      // The open tasks by day are already limited to the open tasks
+      matches *= fraction(date.candidates, Boolean.FALSE.equals(query.getCompleted())
+          ? index.viewByCompletion(false).size() : size);
+    } else if (query.getSort() == TaskQuery.Sort.DUE_DATE && index.countUndated() == 0) {
+      plans.add(byDate(query, index)); // Every task is in the date index, in sort order
+    }
+    if (query.getPriorities() != null) {
+      TaskQueryPlan priority = byPriority(query, index, query.getPriorities());
+      plans.add(priority);
+      matches *= fraction(priority.candidates, size);
+    } else if (sortsByPriorityFirst(query) && index.countUnprioritized() == 0) {
+      // Every task is in the priority index, in sort order
+      plans.add(byPriority(query, index, EnumSet.allOf(Priority.class)));
+    }
+    if (query.getWords() != null) {
+      TaskQueryPlan words = byWords(query, index, plans);
+      plans.add(words);
+      matches *= fraction(words.candidates, size);
+    }
+
+    TaskQueryPlan best = null; // On a tie the later plan, which uses an index, wins
+    for (TaskQueryPlan plan : plans) {
+      plan.cost = plan.estimateCost(matches);
+      if (best == null || plan.cost <= best.cost) {
+        best = plan;
+      }
+    }
+    return best;
+  }
+
+  private static double fraction(long part, long whole) {
+    return whole == 0 ? 0 : (double) part / whole;
+  }
+
+  // Every task is in exactly one of the completion buckets
+  private static TaskQueryPlan fullScan(TaskQuery query, TaskIndex index) {
+    List<Collection<Task>> groups = new ArrayList<>();
+    groups.add(index.viewByCompletion(false));
+    groups.add(index.viewByCompletion(true));
+    TaskQueryPlan plan = new TaskQueryPlan(query, "full scan", groups, index.size(), query.getSort() == null);
+    plan.exact = query.criteria() == 0;
+    return plan;
+  }
+
+  // One group per day, in the direction of the sort if the query sorts by due date
+  private static TaskQueryPlan byDate(TaskQuery query, TaskIndex index) {
+    boolean openOnly = Boolean.FALSE.equals(query.getCompleted());
+    boolean descending = query.getSort() == TaskQuery.Sort.DUE_DATE && query.isDescending();
+    LocalDate from = query.getDueFrom();
+    LocalDate to = query.getDueTo();
+    Task after = query.getAfter();
+    if (query.getSort() == TaskQuery.Sort.DUE_DATE && after != null && after.getDueDate() != null) {
+      // The days before the start of the results, in the sort order, can be skipped
+      if (descending) {
+        to = to == null || after.getDueDate().isBefore(to) ? after.getDueDate() : to;
+      } else {
+        from = from == null || after.getDueDate().isAfter(from) ? after.getDueDate() : from;
+      }
+    }
+    NavigableMap<Long, NavigableMap<Long, Task>> days = index.viewDays(from, to, openOnly);
+    if (descending) {
+      days = days.descendingMap();
+    }
+    List<Collection<Task>> groups = new ArrayList<>();
+    long candidates = 0;
+    for (Map<Long, Task> day : days.values()) {
+      groups.add(day.values());
+      candidates += day.size();
+    }
+    boolean ordered = query.getSort() == null || query.getSort() == TaskQuery.Sort.DUE_DATE;
+    TaskQueryPlan plan = new TaskQueryPlan(query, openOnly ? "open tasks by due date" : "due date", groups, candidates, ordered);
+    int covered = (query.getDueFrom() == null ? 0 : 1) + (query.getDueTo() == null ? 0 : 1) + (openOnly ? 1 : 0);
+    plan.exact = query.criteria() == covered;
+    return plan;
+  }
+
+  // One group per priority, in the direction of the sort if the query sorts by priority first
+  private static TaskQueryPlan byPriority(TaskQuery query, TaskIndex index, Set<Priority> priorities) {
+    boolean byPriorityFirst = sortsByPriorityFirst(query);
+    boolean descending = byPriorityFirst && query.isDescending();
+    Priority start = byPriorityFirst && query.getAfter() != null ? query.getAfter().getPriority() : null;
+    Priority[] order = Priority.values();
+    List<Collection<Task>> groups = new ArrayList<>();
+    long candidates = 0;
+    for (int i = 0; i < order.length; i++) {
+      Priority priority = descending ? order[order.length - 1 - i] : order[i];
+      // The priorities before the start of the results, in the sort order, can be skipped
+      boolean beforeStart = start != null && (descending ? priority.compareTo(start) > 0 : priority.compareTo(start) < 0);
+      if (priorities.contains(priority) && !beforeStart) {
+        Collection<Task> bucket = index.viewByPriority(priority);
+        groups.add(bucket);
+        candidates += bucket.size();
+      }
+    }
+    boolean ordered = query.getSort() == null || byPriorityFirst;
+    TaskQueryPlan plan = new TaskQueryPlan(query, "priority " + priorities, groups, candidates, ordered);
+    plan.exact = query.criteria() == (query.getPriorities() == null ? 0 : 1);
+    return plan;
+  }
+
+  private static boolean sortsByPriorityFirst(TaskQuery query) {
+    return query.getSort() == TaskQuery.Sort.PRIORITY || query.getSort() == TaskQuery.Sort.PRIORITY_DUE_DATE;
+  }
+
+  // The tasks with the least common of the words, which the others are checked against
+  private static TaskQueryPlan byWords(TaskQuery query, TaskIndex index, List<TaskQueryPlan> plans) {
+    long bound = index.size();
+    for (TaskQueryPlan plan : plans) {
+      bound = Math.min(bound, plan.candidates);
+    }
+    String rarest = null;
+    long candidates = Long.MAX_VALUE;
+    for (String word : query.getWords()) {
+      long count = index.text().countPrefix(word, bound);
+      if (count < candidates) {
+        rarest = word;
+        candidates = count;
+      }
+    }
+    List<Collection<Task>> groups = new ArrayList<>();
+    groups.add(new WordPostings(index, rarest));
+    boolean ordered = query.getSort() == null || (query.getSort() == TaskQuery.Sort.ID && !query.isDescending());
+    TaskQueryPlan plan = new TaskQueryPlan(query, "word \"" + rarest + "\"", groups, candidates, ordered);
+    plan.exact = query.criteria() == 1;
+    return plan;
+  }
+
+  private static TaskQueryPlan byCompletion(TaskQuery query, TaskIndex index) {
+    boolean completed = query.getCompleted();
+    List<Collection<Task>> groups = new ArrayList<>();
+    groups.add(index.viewByCompletion(completed));
+    TaskQueryPlan plan = new TaskQueryPlan(query, completed ? "completed" : "not completed", groups,
+        groups.get(0).size(), query.getSort() == null);
+    plan.exact = query.criteria() == 1;
+    return plan;
+  }
+
+  // Tasks read, plus the comparisons to sort the matches found if the plan can't stop early
+  private double estimateCost(double matches) {
+    if (query.getLimit() == 0) {
+      return 0;
+    }
+    if (!ordered || query.getLimit() >= matches) {
+      return candidates + sortCost(matches);
+    }
+    if (query.getSort() == null) {
+      return candidates * (query.getLimit() / matches); // The scan stops at the limit
+    }
+    // The scan stops after the group in which the limit is reached, so whole groups are read
+    double perCandidate = matches / candidates;
+    double read = 0;
+    double found = 0;
+    for (Collection<Task> group : groups) {
+      if (found >= query.getLimit()) {
+        break;
+      }
+      read += group.size();
+      found += group.size() * perCandidate;
+    }
+    return read + sortCost(found);
+  }
+
+  // Comparisons to sort the matches, or to keep the best of them in a heap of the size of the limit
+  private double sortCost(double count) {
+    double kept = Math.min(count, query.getLimit());
+    return query.getSort() == null || kept < 2 ? 0 : count * Math.log(kept) / Math.log(2);
+  }
+
+  /**
+   * Runs the plan. A sorted query with a limit keeps only the best results found so far, in a
+   * heap of the size of the limit, so it costs O(n log k) time and O(k) memory for n matches
+   * and a limit of k instead of sorting every match.
+   *
+   * <p>A plan that has to check every one of at least the threshold of candidates, rather than
+   * stop early, splits them across the pool. The results are the same, in the same order, as
+   * those of a scan on one thread.
+   *
+   * @param pool The pool to split large scans across.
+   * @param threshold The number of candidates from which a scan is split.
+   * @return The matching tasks, sorted and limited as the query says.
+   */
+  List<Task> run(ForkJoinPool pool, int threshold) {
+    int limit = query.getLimit();
+    if (limit == 0) {
+      return new ArrayList<>();
+    }
+    Comparator<Task> comparator = query.comparator();
+    boolean scansAll = limit == Integer.MAX_VALUE || (comparator != null && !ordered);
+    boolean worthChecking = !exact || comparator != null || query.getAfter() != null;
+    if (candidates >= threshold && pool.getParallelism() > 1 && scansAll && worthChecking) {
+      return runParallel(pool);
+    }
+    if (comparator == null) {
+      return scan(limit);
+    }
+    if (limit == Integer.MAX_VALUE) {
+      List<Task> results = scan(limit);
+      results.sort(comparator);
+      return results;
+    }
+    PriorityQueue<Task> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, comparator.reversed());
+    for (Collection<Task> group : groups) {
+      // A group that comes later in the sort order can't hold a better result
+      if (ordered && best.size() >= limit) {
+        break;
+      }
+      for (Task task : group) {
+        if ((exact || query.matches(task)) && query.isPastStart(task)) {
+          if (best.size() < limit) {
+            best.add(task);
+          } else if (comparator.compare(task, best.peek()) < 0) {
+            best.poll(); // Drop the worst result kept so far
+            best.add(task);
+          }
+        }
+      }
+    }
+    List<Task> results = new ArrayList<>(best);
+    results.sort(comparator);
+    return results;
+  }
+
+  // Splits the candidates into ranges checked in parallel, whose results are merged in order
+  private List<Task> runParallel(ForkJoinPool pool) {
+    List<Task> flat = new ArrayList<>((int) candidates);
+    for (Collection<Task> group : groups) {
+      flat.addAll(group);
+    }
+    Task[] all = flat.toArray(new Task[0]);
+    int count = all.length;
+    // A few ranges per worker, so that workers that finish early can steal the rest
+    int leafSize = Math.max(ParallelScan.MIN_LEAF_SIZE, count / (pool.getParallelism() * 4));
+    return pool.invoke(new ParallelScan(this, all, 0, count, leafSize));
+  }
+
+  /**
+   * Checks a range of the candidates, splitting it in halves as long as it is larger than
+   * the leaf size. Each range returns its matches in candidate order, or sorted and cut to
+   * the limit if the query is sorted, and halves are joined in order, so the result doesn't
+   * depend on how the work was split.
+   */
+  private static final class ParallelScan extends RecursiveTask<List<Task>> {
+    private static final long serialVersionUID = 1L;
+    static final int MIN_LEAF_SIZE = 4096; // Smaller ranges cost more to hand out than to check
+
+    private final TaskQueryPlan plan;
+    private final Task[] tasks;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+
+    ParallelScan(TaskQueryPlan plan, Task[] tasks, int from, int to, int leafSize) {
+      this.plan = plan;
+      this.tasks = tasks;
+      this.from = from;
+      this.to = to;
+      this.leafSize = leafSize;
+    }
+
+    @Override
+    protected List<Task> compute() {
+      TaskQuery query = plan.query;
+      Comparator<Task> comparator = query.comparator();
+      if (to - from <= leafSize) {
+        List<Task> results = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+          if ((plan.exact || query.matches(tasks[i])) && query.isPastStart(tasks[i])) {
+            results.add(tasks[i]);
+          }
+        }
+        if (comparator != null) {
+          results.sort(comparator);
+        }
+        return results.size() > query.getLimit() ? new ArrayList<>(results.subList(0, query.getLimit())) : results;
+      }
+      int middle = (from + to) >>> 1;
+      ParallelScan right = new ParallelScan(plan, tasks, middle, to, leafSize);
+      right.fork();
+      List<Task> left = new ParallelScan(plan, tasks, from, middle, leafSize).compute();
+      return join(left, right.join(), comparator, query.getLimit());
+    }
+
+    // Appends the right results to the left ones, or merges them if sorted, up to the limit
+    private static List<Task> join(List<Task> left, List<Task> right, Comparator<Task> comparator, int limit) {
+      if (comparator == null) {
+        left.addAll(right);
+        return left;
+      }
+      List<Task> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+      int i = 0;
+      int j = 0;
+      while (merged.size() < limit && (i < left.size() || j < right.size())) {
+        if (j == right.size() || (i < left.size() && comparator.compare(left.get(i), right.get(j)) <= 0)) {
+          merged.add(left.get(i++));
+        } else {
+          merged.add(right.get(j++));
+        }
+      }
+      return merged;
+    }
+  }
+
+  // Collects the matches in the order of the groups, stopping at the limit
+  private List<Task> scan(int limit) {
+    List<Task> results = new ArrayList<>();
+    for (Collection<Task> group : groups) {
+      for (Task task : group) {
+        if ((exact || query.matches(task)) && query.isPastStart(task)) {
+          results.add(task);
+          if (results.size() >= limit) {
+            return results;
+          }
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * The tasks with a word starting with a prefix, in ID order, looked up when first needed,
+   * since the word index only counts them cheaply.
+   */
+  private static final class WordPostings extends AbstractCollection<Task> {
+    private final TaskIndex index;
+    private final String prefix;
+    private int[] ids; // Null until looked up
+
+    WordPostings(TaskIndex index, String prefix) {
+      this.index = index;
+      this.prefix = prefix;
+    }
+
+    private int[] ids() {
+      if (ids == null) {
+        ids = index.text().lookupPrefix(prefix);
+      }
+      return ids;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+      int[] found = ids();
+      return new Iterator<Task>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < found.length;
+        }
+
+        @Override
+        public Task next() {
+          if (next >= found.length) {
+            throw new NoSuchElementException();
+          }
+          return index.get(found[next++]);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return ids().length;
+    }
+  }
+
+  /**
+   * Describes the plan, for example to check which index a query uses.
+   *
+   * @return The index used, the number of candidates and the estimated cost.
+   */
+  @Override
+  public String toString() {
+    return String.format("%s: %d candidates%s, estimated cost %.0f",
+        access, candidates, ordered && query.getSort() != null ? " in sort order" : "", cost);
+  }
+}
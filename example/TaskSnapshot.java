@@ -0,0 +1,79 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * An immutable view of the tasks in a task list at one version of the list.
+ * The same snapshot is handed to every caller until the list is next changed, and iterating
+ * it does not copy the tasks. The tasks themselves are the live task objects; the snapshot
+ * fixes which tasks are in the list and in what order.
+ */
+public final class TaskSnapshot implements Iterable<Task> {
+  private final long version; // Version of the list the snapshot was taken at
+  private final List<Task> tasks; // Read-only view of the tasks, owned by this snapshot
+
+  /**
+   * Creates a snapshot over the specified tasks. The list must not be changed afterwards.
+   *
+   * @param version The version of the list the tasks were taken from.
+   * @param tasks The tasks in the list, in list order.
+   */
+  TaskSnapshot(long version, List<Task> tasks) {
+    this.version = version;
+    this.tasks = Collections.unmodifiableList(tasks);
+  }
+
+  /**
+   * Gets the version of the list this snapshot was taken at.
+   *
+   * @return The version number.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets the number of tasks in the snapshot.
+   *
+   * @return The number of tasks.
+   */
+  public int size() {
+    return tasks.size();
+  }
+
+  /**
+   * Gets the task at the specified position.
+   *
+   * @param index The position of the task.
+   * @return The task at that position.
+   */
+  public Task get(int index) {
+    return tasks.get(index);
+  }
+
+  /**
+   * Gets the tasks as a read-only list, without copying them.
+   *
+   * @return A read-only list of the tasks.
+   */
+  public List<Task> asList() {
+    return tasks;
+  }
+
+  /**
+   * Gets a stream over the tasks.
+   *
+   * @return A stream of the tasks.
+   */
+  public Stream<Task> stream() {
+    return tasks.stream();
+  }
+
+  @Override
+  public Iterator<Task> iterator() {
+    return tasks.iterator();
+  }
+}
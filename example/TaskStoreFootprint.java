@@ -0,0 +1,57 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap used by the task list implementations when holding the same tasks.
+ * Run with the number of tasks as the first argument (default 1,000,000), for example
+ * {@code java -Xmx4g org.example.TaskStoreFootprint 1000000}.
+ */
+public class TaskStoreFootprint {
+
+  /**
+   * Builds each kind of task list with the same tasks and prints the heap it retains.
+   *
+   * @param args The number of tasks to store (optional).
+   */
+  public static void main(String[] args) {
+    int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    System.out.printf("Heap retained by %,d tasks:%n", taskCount);
+    report("TaskList", TaskList::new, taskCount);
+    report("IndexedTaskList", IndexedTaskList::new, taskCount);
+    report("ColumnarTaskList", () -> new ColumnarTaskList(taskCount), taskCount);
+  }
+
+  private static void report(String name, Supplier<TaskListADT> factory, int taskCount) {
+    long before = usedHeap();
+    TaskListADT taskList = factory.get();
+    LocalDate start = LocalDate.of(2024, 1, 1);
+    Priority[] priorities = Priority.values();
+    for (int i = 0; i < taskCount; i++) {
+      // Tasks are only referenced by the list, as they would be after loading a file
+      taskList.addTask(new Task("Task number " + i, start.plusDays(i % 365), i % 2 == 0,
+          priorities[i % priorities.length]));
+    }
+    long used = usedHeap() - before;
+    System.out.printf("  %-18s %,15d bytes  %6.1f bytes/task%n", name, used, (double) used / taskCount);
+    if (taskList.getTaskById(-1) != null) {
+      throw new IllegalStateException(); // Keeps taskList reachable until after the measurement
+    }
+  }
+
+  // Heap in use after asking the collector to run until the number settles
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long now = runtime.totalMemory() - runtime.freeMemory();
+      if (now >= used) {
+        break;
+      }
+      used = now;
+    }
+    return used;
+  }
+}
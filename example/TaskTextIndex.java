@@ -0,0 +1,331 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * An inverted index from the words of task descriptions to the IDs of the tasks whose
+ * description has them, so that a word search costs time in proportion to the number of
+ * matching tasks instead of the size of the whole list.
+ *
+ * <p>Words are the runs of letters and digits of a description, in lower case. They are
+ * kept in a sorted map, so the words starting with a prefix are found in O(log n + k),
+ * which also serves type-ahead. Each word maps to a posting list that keeps its task IDs in
+ * ascending order as variable-length deltas, mostly one or two bytes an ID.
+ */
+final class TaskTextIndex {
+  private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+  /**
+   * Splits a text into its distinct words, in lower case, in the order they first appear.
+   *
+   * @param text The text to split; null has no words.
+   * @return The words of the text.
+   */
+  static List<String> words(String text) {
+    List<String> words = new ArrayList<>(); // Descriptions are short, so a list dedupes fast enough
+    if (text == null) {
+      return words;
+    }
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+        if (!words.contains(word)) {
+          words.add(word);
+        }
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  /**
+   * Indexes the words of a task's description.
+   *
+   * @param taskId The ID of the task.
+   * @param description The description of the task.
+   */
+  void add(int taskId, String description) {
+    for (String word : words(description)) {
+      postings.computeIfAbsent(word, key -> new PostingList()).add(taskId);
+    }
+  }
+
+  /**
+   * Removes the words of a task's description from the index.
+   *
+   * @param taskId The ID of the task.
+   * @param description The description the task was indexed with.
+   */
+  void remove(int taskId, String description) {
+    for (String word : words(description)) {
+      PostingList list = postings.get(word);
+      if (list != null) {
+        list.remove(taskId);
+        if (list.size() == 0) {
+          postings.remove(word);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the IDs of the tasks whose description has a word starting with a prefix.
+   *
+   * @param prefix The prefix, in lower case.
+   * @return The task IDs in ascending order, each once.
+   */
+  int[] lookupPrefix(String prefix) {
+    NavigableMap<String, PostingList> matching = withPrefix(prefix);
+    if (matching.size() == 1) {
+      return matching.firstEntry().getValue().toArray();
+    }
+    int total = 0;
+    for (PostingList list : matching.values()) {
+      total += list.size();
+    }
+    int[] ids = new int[total];
+    int count = 0;
+    for (PostingList list : matching.values()) {
+      count = list.copyTo(ids, count);
+    }
+    Arrays.sort(ids);
+    int distinct = 0;
+    for (int i = 0; i < ids.length; i++) {
+      if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+        ids[distinct++] = ids[i];
+      }
+    }
+    return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+  }
+
+  /**
+   * Counts the postings of the words starting with a prefix, which is at least the number of
+   * tasks lookupPrefix would find. Counting stops once the count passes a bound, so that
+   * a short prefix with many words costs no more than the caller is willing to spend.
+   *
+   * @param prefix The prefix, in lower case.
+   * @param bound The count above which counting stops.
+   * @return The number of postings, or a number above the bound.
+   */
+  long countPrefix(String prefix, long bound) {
+    long count = 0;
+    for (PostingList list : withPrefix(prefix).values()) {
+      count += list.size();
+      if (count > bound) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Gets the indexed words starting with a prefix, for type-ahead.
+   *
+   * @param prefix The prefix, in lower case.
+   * @param max The most words to return.
+   * @return The words in alphabetical order.
+   */
+  List<String> complete(String prefix, int max) {
+    List<String> words = new ArrayList<>();
+    for (String word : withPrefix(prefix).keySet()) {
+      if (words.size() >= max) {
+        break;
+      }
+      words.add(word);
+    }
+    return words;
+  }
+
+  /**
+   * Gets the number of distinct words in the index.
+   *
+   * @return The number of words.
+   */
+  int wordCount() {
+    return postings.size();
+  }
+
+  /**
+   * Gets the number of bytes the posting lists take, not counting the words themselves.
+   *
+   * @return The size of the encoded task IDs.
+   */
+  long postingBytes() {
+    long bytes = 0;
+    for (PostingList list : postings.values()) {
+      bytes += list.bytes();
+    }
+    return bytes;
+  }
+
+  // Every word that starts with the prefix sorts between the prefix and the prefix followed by the largest char
+  private NavigableMap<String, PostingList> withPrefix(String prefix) {
+    return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+  }
+
+  /**
+   * The IDs of the tasks with one word, in ascending order, delta-encoded as variable-length
+   * integers with seven bits a byte. IDs come mostly in ascending order and are appended.
+   * An ID that comes out of order, and every removal, is kept in a small list of pending
+   * changes, which is merged into the encoded IDs once it has grown by a fraction of them,
+   * so that changes cost amortized constant time.
+   */
+  static final class PostingList {
+    private static final int[] NO_IDS = new int[0];
+
+    private byte[] data = new byte[4];
+    private int length; // Bytes of data in use
+    private int encoded; // Number of IDs encoded in data
+    private int last = -1; // Largest ID encoded in data
+    private int[] added = NO_IDS; // IDs not in data, unsorted
+    private int addedCount;
+    private int[] removed = NO_IDS; // IDs in data that were removed, unsorted
+    private int removedCount;
+
+    /**
+     * Adds an ID that is not in the list.
+     *
+     * @param id The ID to add.
+     */
+    void add(int id) {
+      int index = indexOf(removed, removedCount, id);
+      if (index >= 0) {
+        removed[index] = removed[--removedCount]; // It was in data all along
+      } else if (id > last) {
+        append(id);
+      } else {
+        added = push(added, addedCount++, id);
+        mergeIfLarge();
+      }
+    }
+
+    /**
+     * Removes an ID that is in the list.
+     *
+     * @param id The ID to remove.
+     */
+    void remove(int id) {
+      int index = indexOf(added, addedCount, id);
+      if (index >= 0) {
+        added[index] = added[--addedCount];
+      } else {
+        removed = push(removed, removedCount++, id);
+        mergeIfLarge();
+      }
+    }
+
+    int size() {
+      return encoded + addedCount - removedCount;
+    }
+
+    int bytes() {
+      return data.length + 4 * (added.length + removed.length);
+    }
+
+    /**
+     * Decodes the IDs.
+     *
+     * @return The IDs in ascending order.
+     */
+    int[] toArray() {
+      int[] ids = new int[size()];
+      copyTo(ids, 0);
+      if (addedCount > 0) {
+        Arrays.sort(ids);
+      }
+      return ids;
+    }
+
+    // Copies the IDs, not necessarily in order, returning the index after the last one copied
+    int copyTo(int[] ids, int offset) {
+      int[] gone = Arrays.copyOf(removed, removedCount);
+      Arrays.sort(gone);
+      int next = 0; // The smallest removed ID not passed yet, as the IDs ascend
+      int count = offset;
+      int id = -1;
+      int position = 0;
+      while (position < length) {
+        int delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          delta |= (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+        id += delta;
+        while (next < gone.length && gone[next] < id) {
+          next++;
+        }
+        if (next < gone.length && gone[next] == id) {
+          next++;
+        } else {
+          ids[count++] = id;
+        }
+      }
+      System.arraycopy(added, 0, ids, count, addedCount);
+      return count + addedCount;
+    }
+
+    private void append(int id) {
+      if (length + 5 > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 3 / 2, length + 5));
+      }
+      int delta = id - last; // At least one, since task IDs are positive and ascend
+      while ((delta & ~0x7F) != 0) {
+        data[length++] = (byte) ((delta & 0x7F) | 0x80);
+        delta >>>= 7;
+      }
+      data[length++] = (byte) delta;
+      last = id;
+      encoded++;
+    }
+
+    // Merges the pending changes once they outgrow a fraction of the encoded IDs
+    private void mergeIfLarge() {
+      if (addedCount + removedCount <= 16 + encoded / 32) {
+        return;
+      }
+      int[] ids = new int[size()];
+      copyTo(ids, 0);
+      Arrays.sort(ids);
+      data = new byte[Math.max(4, ids.length * 2)];
+      length = 0;
+      encoded = 0;
+      last = -1;
+      added = NO_IDS;
+      addedCount = 0;
+      removed = NO_IDS;
+      removedCount = 0;
+      for (int id : ids) {
+        append(id);
+      }
+    }
+
+    private static int indexOf(int[] ids, int count, int id) {
+      for (int i = 0; i < count; i++) {
+        if (ids[i] == id) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private static int[] push(int[] ids, int count, int id) {
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(4, count * 2));
+      }
+      ids[count] = id;
+      return ids;
+    }
+  }
+}